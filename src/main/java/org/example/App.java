@@ -1,13 +1,55 @@
 package org.example;
 
+import java.net.URI;
+
 /**
  * Hello world!
  *
+ * Modes:
+ *   server [port]                                    - run the local battle server (default port 8080)
+ *   loadtest [preset|simulate] [requests] [threads] [url]
+ *                                                    - measure p50/p99 latency; without url an
+ *                                                      embedded server on a free port is used
+ *   analyze recording.jfr [top]                      - slowest rounds and path search hotspots
  */
 public class App 
 {
-    public static void main( String[] args )
+    public static void main( String[] args ) throws Exception
     {
+        if ( args.length > 0 && "server".equals( args[0] ) )
+        {
+            int port = args.length > 1 ? Integer.parseInt( args[1] ) : 8080;
+            BattleServer server = BattleServer.start( port );
+            System.out.println( "Battle server listening on http://127.0.0.1:" + server.port() );
+            Thread.currentThread().join();
+            return;
+        }
+
+        if ( args.length > 0 && "loadtest".equals( args[0] ) )
+        {
+            String endpoint = args.length > 1 ? args[1] : "simulate";
+            int requests = args.length > 2 ? Integer.parseInt( args[2] ) : 1000;
+            int threads = args.length > 3 ? Integer.parseInt( args[3] ) : 16;
+
+            if ( args.length > 4 )
+            {
+                System.out.println( LoadTest.run( URI.create( args[4] ), endpoint, requests, threads ) );
+                return;
+            }
+            try ( BattleServer server = BattleServer.start( 0 ) )
+            {
+                URI base = URI.create( "http://127.0.0.1:" + server.port() );
+                System.out.println( LoadTest.run( base, endpoint, requests, threads ) );
+            }
+            return;
+        }
+
+        if ( args.length > 1 && "analyze".equals( args[0] ) )
+        {
+            FlightRecordingAnalyzer.main( java.util.Arrays.copyOfRange( args, 1, args.length ) );
+            return;
+        }
+
         System.out.println( "Hello World!" );
     }
 }
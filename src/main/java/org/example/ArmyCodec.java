@@ -0,0 +1,241 @@
+package org.example;
+
+import com.battle.heroes.army.Army;
+import com.battle.heroes.army.Unit;
+import programs.HeadlessBattle;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact binary payloads of the battle server (big-endian, {@link DataInput} encoding).
+ * <pre>
+ * typeBlock   := int typeCount, typeCount * (UTF unitType, UTF attackType,
+ *                                            int health, int baseAttack, int cost, int count)
+ * preset      := int maxPoints, typeBlock          (count is ignored)
+ * simulate    := typeBlock player, typeBlock computer
+ * </pre>
+ * Health must be positive everywhere. Attack must be positive only in battle armies:
+ * a zero-attack type is a valid (if poor) catalogue entry for preset generation.
+ * Type names are at most {@link #MAX_NAME_CHARS} characters, which bounds a valid body by
+ * {@link #MAX_BODY_BYTES}.
+ * Responses are small JSON objects.
+ */
+final class ArmyCodec {
+
+    static final int MAX_TYPES = 4096;
+    static final int MAX_NAME_CHARS = 64;
+
+    // a typeBlock of MAX_TYPES entries, both names at 3 bytes per char (modified UTF-8 worst case);
+    // /simulate carries two blocks and is the longer payload
+    static final int MAX_BODY_BYTES = 2 * (4 + MAX_TYPES * (2 * (2 + 3 * MAX_NAME_CHARS) + 4 * 4));
+
+    private ArmyCodec() {
+    }
+
+    // ---------- requests ----------
+
+    static final class PresetRequest {
+        final int maxPoints;
+        final List<Unit> catalogue;
+
+        PresetRequest(int maxPoints, List<Unit> catalogue) {
+            this.maxPoints = maxPoints;
+            this.catalogue = catalogue;
+        }
+    }
+
+    static final class SimulateRequest {
+        final Army player;
+        final Army computer;
+
+        SimulateRequest(Army player, Army computer) {
+            this.player = player;
+            this.computer = computer;
+        }
+    }
+
+    static PresetRequest readPreset(byte[] body) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(body));
+        int maxPoints = in.readInt();
+        List<Unit> catalogue = new ArrayList<>();
+        for (TypeEntry t : readTypes(in, false)) {
+            catalogue.add(t.prototype());
+        }
+        return new PresetRequest(maxPoints, catalogue);
+    }
+
+    static SimulateRequest readSimulate(byte[] body) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(body));
+        Army player = expand(readTypes(in, true));
+        Army computer = expand(readTypes(in, true));
+        return new SimulateRequest(player, computer);
+    }
+
+    static byte[] writePreset(int maxPoints, List<TypeEntry> catalogue) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(maxPoints);
+            writeTypes(out, catalogue);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    static byte[] writeSimulate(List<TypeEntry> player, List<TypeEntry> computer) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            writeTypes(out, player);
+            writeTypes(out, computer);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static List<TypeEntry> readTypes(DataInputStream in, boolean requireAttack) throws IOException {
+        int n = in.readInt();
+        if (n < 0 || n > MAX_TYPES) {
+            throw new IllegalArgumentException("Type count out of range: " + n);
+        }
+        List<TypeEntry> types = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            String unitType = in.readUTF();
+            String attackType = in.readUTF();
+            int health = in.readInt();
+            int attack = in.readInt();
+            int cost = in.readInt();
+            int count = in.readInt();
+            if (unitType.length() > MAX_NAME_CHARS || attackType.length() > MAX_NAME_CHARS) {
+                throw new IllegalArgumentException("Type name longer than " + MAX_NAME_CHARS + " characters: " + unitType);
+            }
+            if (count < 0 || count > HeadlessBattle.MAX_UNITS_PER_SIDE) {
+                throw new IllegalArgumentException("Unit count out of range: " + count);
+            }
+            if (health <= 0) {
+                throw new IllegalArgumentException("Health must be positive: " + unitType);
+            }
+            if (requireAttack && attack <= 0) {
+                throw new IllegalArgumentException("Attack must be positive: " + unitType);
+            }
+            types.add(new TypeEntry(unitType, attackType, health, attack, cost, count));
+        }
+        return types;
+    }
+
+    private static void writeTypes(DataOutputStream out, List<TypeEntry> types) throws IOException {
+        out.writeInt(types.size());
+        for (TypeEntry t : types) {
+            out.writeUTF(t.unitType);
+            out.writeUTF(t.attackType);
+            out.writeInt(t.health);
+            out.writeInt(t.attack);
+            out.writeInt(t.cost);
+            out.writeInt(t.count);
+        }
+    }
+
+    private static Army expand(List<TypeEntry> types) {
+        List<Unit> units = new ArrayList<>();
+        for (TypeEntry t : types) {
+            for (int i = 1; i <= t.count; i++) {
+                Unit u = t.prototype();
+                u.setName(t.unitType + "_" + i);
+                units.add(u);
+            }
+        }
+        if (units.size() > HeadlessBattle.MAX_UNITS_PER_SIDE) {
+            throw new IllegalArgumentException("Army has " + units.size() + " units, at most "
+                    + HeadlessBattle.MAX_UNITS_PER_SIDE + " allowed");
+        }
+        return new Army(units);
+    }
+
+    /** One unit type with a count, as carried in a type block. */
+    static final class TypeEntry {
+        final String unitType;
+        final String attackType;
+        final int health;
+        final int attack;
+        final int cost;
+        final int count;
+
+        TypeEntry(String unitType, String attackType, int health, int attack, int cost, int count) {
+            this.unitType = unitType;
+            this.attackType = attackType;
+            this.health = health;
+            this.attack = attack;
+            this.cost = cost;
+            this.count = count;
+        }
+
+        Unit prototype() {
+            return new Unit(unitType, unitType, health, attack, cost, attackType, null, null, 0, 0);
+        }
+    }
+
+    // ---------- responses ----------
+
+    static byte[] presetJson(Army army) {
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        for (Unit u : army.getUnits()) {
+            counts.merge(u.getUnitType(), 1, Integer::sum);
+        }
+
+        StringBuilder sb = new StringBuilder();
+        sb.append("{\"points\":").append(army.getPoints()).append(",\"types\":[");
+        boolean first = true;
+        for (Map.Entry<String, Integer> e : counts.entrySet()) {
+            if (!first) sb.append(',');
+            first = false;
+            sb.append("{\"unitType\":");
+            appendString(sb, e.getKey());
+            sb.append(",\"count\":").append(e.getValue()).append('}');
+        }
+        sb.append("]}");
+        return utf8(sb);
+    }
+
+    static byte[] battleJson(HeadlessBattle.Result r) {
+        String winner = r.playerWon() ? "PLAYER" : (r.computerWon() ? "COMPUTER" : "DRAW");
+        StringBuilder sb = new StringBuilder();
+        sb.append("{\"winner\":\"").append(winner).append('"')
+                .append(",\"playerSurvivors\":").append(r.getPlayerSurvivors())
+                .append(",\"computerSurvivors\":").append(r.getComputerSurvivors())
+                .append(",\"playerHealth\":").append(r.getPlayerHealth())
+                .append(",\"computerHealth\":").append(r.getComputerHealth())
+                .append(",\"turns\":").append(r.getAttacks())
+                .append('}');
+        return utf8(sb);
+    }
+
+    static byte[] errorJson(String message) {
+        StringBuilder sb = new StringBuilder("{\"error\":");
+        appendString(sb, message == null ? "" : message);
+        return utf8(sb.append('}'));
+    }
+
+    private static void appendString(StringBuilder sb, String s) {
+        sb.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '"' || c == '\\') {
+                sb.append('\\').append(c);
+            } else if (c < 0x20) {
+                sb.append(String.format("\\u%04x", (int) c));
+            } else {
+                sb.append(c);
+            }
+        }
+        sb.append('"');
+    }
+
+    private static byte[] utf8(StringBuilder sb) {
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,348 @@
+package org.example;
+
+import com.battle.heroes.army.Army;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import programs.DaemonThreads;
+import programs.GeneratePresetImpl;
+import programs.HeadlessBattle;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Local HTTP front end for preset generation and headless battles, built on the JDK {@link HttpServer}.
+ * <ul>
+ *   <li>{@code POST /preset} — binary preset payload (see {@link ArmyCodec}); identical requests that
+ *       arrive while one is being computed share its result.</li>
+ *   <li>{@code POST /simulate} — binary simulate payload; requests are collected into micro-batches
+ *       and run on a bounded worker pool, overflow is answered with 503.</li>
+ *   <li>{@code GET /stats} — request, coalescing and batching counters.</li>
+ * </ul>
+ * Request bodies longer than {@link ArmyCodec#MAX_BODY_BYTES} are answered with 413 without being read
+ * in full.
+ * Exchanges are handled on virtual threads when the runtime has them (Java 21+),
+ * otherwise on a cached pool of daemon threads.
+ */
+public final class BattleServer implements AutoCloseable {
+
+    private final HttpServer server;
+    private final ExecutorService handlers;
+    private final ThreadPoolExecutor workers;
+    private final BlockingQueue<SimulationJob> pending;
+    private final Thread batcher;
+    private final Config config;
+
+    private final GeneratePresetImpl presetGenerator = new GeneratePresetImpl();
+    private final ConcurrentMap<ByteBuffer, CompletableFuture<byte[]>> presetsInFlight = new ConcurrentHashMap<>();
+
+    private final AtomicLong presetRequests = new AtomicLong();
+    private final AtomicLong presetsCoalesced = new AtomicLong();
+    private final AtomicLong simulateRequests = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+
+    private volatile boolean running = true;
+
+    private BattleServer(HttpServer server, Config config) {
+        this.server = server;
+        this.config = config;
+        this.handlers = newHandlerExecutor();
+        this.workers = new ThreadPoolExecutor(config.workers, config.workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(config.workerQueue), DaemonThreads.named("battle-worker"));
+        this.pending = new ArrayBlockingQueue<>(config.pendingSimulations);
+        this.batcher = DaemonThreads.named("battle-batcher").newThread(this::batchLoop);
+
+        server.createContext("/preset", this::handlePreset);
+        server.createContext("/simulate", this::handleSimulate);
+        server.createContext("/stats", this::handleStats);
+        server.setExecutor(handlers);
+    }
+
+    public static BattleServer start(int port) throws IOException {
+        return start(port, new Config());
+    }
+
+    public static BattleServer start(int port, Config config) throws IOException {
+        HttpServer http = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 0);
+        BattleServer s = new BattleServer(http, config);
+        s.batcher.start();
+        http.start();
+        return s;
+    }
+
+    public int port() {
+        return server.getAddress().getPort();
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        server.stop(0);
+        batcher.interrupt();
+        workers.shutdownNow();
+        handlers.shutdownNow();
+    }
+
+    // ---------- /preset ----------
+
+    private void handlePreset(HttpExchange ex) throws IOException {
+        if (!"POST".equals(ex.getRequestMethod())) {
+            send(ex, 405, ArmyCodec.errorJson("POST expected"));
+            return;
+        }
+        presetRequests.incrementAndGet();
+        byte[] body = readBody(ex);
+        if (body == null) {
+            send(ex, 413, ArmyCodec.errorJson("request body is too large"));
+            return;
+        }
+
+        ByteBuffer key = ByteBuffer.wrap(body);
+        CompletableFuture<byte[]> mine = new CompletableFuture<>();
+        CompletableFuture<byte[]> leader = presetsInFlight.putIfAbsent(key, mine);
+
+        if (leader == null) {
+            try {
+                ArmyCodec.PresetRequest req = ArmyCodec.readPreset(body);
+                Army army = presetGenerator.generate(req.catalogue, req.maxPoints);
+                mine.complete(ArmyCodec.presetJson(army));
+            } catch (IOException | RuntimeException e) {
+                mine.completeExceptionally(e);
+            } finally {
+                presetsInFlight.remove(key, mine);
+            }
+            leader = mine;
+        } else {
+            presetsCoalesced.incrementAndGet();
+        }
+
+        respond(ex, leader);
+    }
+
+    // ---------- /simulate ----------
+
+    private void handleSimulate(HttpExchange ex) throws IOException {
+        if (!"POST".equals(ex.getRequestMethod())) {
+            send(ex, 405, ArmyCodec.errorJson("POST expected"));
+            return;
+        }
+        simulateRequests.incrementAndGet();
+
+        byte[] body = readBody(ex);
+        if (body == null) {
+            send(ex, 413, ArmyCodec.errorJson("request body is too large"));
+            return;
+        }
+
+        ArmyCodec.SimulateRequest req;
+        try {
+            req = ArmyCodec.readSimulate(body);
+        } catch (IOException | RuntimeException e) {
+            send(ex, 400, ArmyCodec.errorJson(e.getMessage()));
+            return;
+        }
+
+        SimulationJob job = new SimulationJob(req);
+        if (!pending.offer(job)) {
+            rejected.incrementAndGet();
+            send(ex, 503, ArmyCodec.errorJson("simulation queue is full"));
+            return;
+        }
+        respond(ex, job.result);
+    }
+
+    /** Collects up to {@code batchSize} jobs or waits {@code batchWindowMillis}, then hands the batch to a worker. */
+    private void batchLoop() {
+        List<SimulationJob> batch = new ArrayList<>(config.batchSize);
+        while (running) {
+            try {
+                batch.add(pending.take());
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(config.batchWindowMillis);
+                while (batch.size() < config.batchSize) {
+                    SimulationJob next = pending.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) break;
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+
+            List<SimulationJob> toRun = new ArrayList<>(batch);
+            batch.clear();
+            try {
+                workers.execute(() -> runBatch(toRun));
+                batches.incrementAndGet();
+            } catch (RejectedExecutionException e) {
+                rejected.addAndGet(toRun.size());
+                for (SimulationJob job : toRun) {
+                    job.result.completeExceptionally(new OverloadedException());
+                }
+            }
+        }
+
+        List<SimulationJob> leftovers = new ArrayList<>(batch);
+        pending.drainTo(leftovers);
+        for (SimulationJob job : leftovers) {
+            job.result.completeExceptionally(new OverloadedException());
+        }
+    }
+
+    // one HeadlessBattle per batch, so the path finder's component labelling is reused across battles
+    private void runBatch(List<SimulationJob> batch) {
+        HeadlessBattle battle = new HeadlessBattle();
+        try {
+            for (SimulationJob job : batch) {
+                try {
+                    HeadlessBattle.Result r = battle.run(job.request.player, job.request.computer);
+                    job.result.complete(ArmyCodec.battleJson(r));
+                } catch (InterruptedException e) {
+                    job.result.completeExceptionally(e);
+                    Thread.currentThread().interrupt();
+                    return;
+                } catch (Throwable t) {
+                    // errors too (e.g. StackOverflowError on a pathological payload): fail this job, run the rest
+                    job.result.completeExceptionally(t);
+                    battle = new HeadlessBattle();
+                }
+            }
+        } finally {
+            // whatever ended the loop early, nobody should wait for the request timeout
+            for (SimulationJob job : batch) {
+                job.result.completeExceptionally(new OverloadedException());
+            }
+        }
+    }
+
+    // ---------- /stats ----------
+
+    private void handleStats(HttpExchange ex) throws IOException {
+        String json = "{\"presetRequests\":" + presetRequests.get()
+                + ",\"presetsCoalesced\":" + presetsCoalesced.get()
+                + ",\"simulateRequests\":" + simulateRequests.get()
+                + ",\"batches\":" + batches.get()
+                + ",\"rejected\":" + rejected.get() + "}";
+        send(ex, 200, json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // ---------- helpers ----------
+
+    private void respond(HttpExchange ex, CompletableFuture<byte[]> result) throws IOException {
+        try {
+            send(ex, 200, result.get(config.requestTimeoutMillis, TimeUnit.MILLISECONDS));
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof OverloadedException) {
+                send(ex, 503, ArmyCodec.errorJson("server is overloaded"));
+            } else if (cause instanceof IOException || cause instanceof IllegalArgumentException) {
+                send(ex, 400, ArmyCodec.errorJson(cause.getMessage()));
+            } else {
+                send(ex, 500, ArmyCodec.errorJson(String.valueOf(cause)));
+            }
+        } catch (TimeoutException e) {
+            send(ex, 503, ArmyCodec.errorJson("timed out"));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            send(ex, 503, ArmyCodec.errorJson("interrupted"));
+        }
+    }
+
+    // null when the body is longer than ArmyCodec.MAX_BODY_BYTES; never reads more than one byte past the limit
+    private static byte[] readBody(HttpExchange ex) throws IOException {
+        String declared = ex.getRequestHeaders().getFirst("Content-Length");
+        if (declared != null) {
+            try {
+                if (Long.parseLong(declared.trim()) > ArmyCodec.MAX_BODY_BYTES) return null;
+            } catch (NumberFormatException ignored) {
+                // the bounded read below still applies
+            }
+        }
+        try (InputStream in = ex.getRequestBody()) {
+            byte[] body = in.readNBytes(ArmyCodec.MAX_BODY_BYTES + 1);
+            return body.length > ArmyCodec.MAX_BODY_BYTES ? null : body;
+        }
+    }
+
+    private static void send(HttpExchange ex, int status, byte[] body) throws IOException {
+        ex.getResponseHeaders().set("Content-Type", "application/json");
+        ex.sendResponseHeaders(status, body.length);
+        try (OutputStream out = ex.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private static ExecutorService newHandlerExecutor() {
+        try {
+            // Java 21+ only; looked up reflectively because the project targets release 17
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool(DaemonThreads.named("battle-http"));
+        }
+    }
+
+    private static final class SimulationJob {
+        final ArmyCodec.SimulateRequest request;
+        final CompletableFuture<byte[]> result = new CompletableFuture<>();
+
+        SimulationJob(ArmyCodec.SimulateRequest request) {
+            this.request = request;
+        }
+    }
+
+    private static final class OverloadedException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        OverloadedException() {
+            super(null, null, false, false);
+        }
+    }
+
+    /** Tuning knobs; defaults suit a developer machine. */
+    public static final class Config {
+        int workers = Runtime.getRuntime().availableProcessors();
+        int workerQueue = 64;
+        int pendingSimulations = 1024;
+        int batchSize = 16;
+        long batchWindowMillis = 2;
+        long requestTimeoutMillis = 30_000;
+
+        public Config workers(int workers) {
+            this.workers = Math.max(1, workers);
+            return this;
+        }
+
+        public Config workerQueue(int capacity) {
+            this.workerQueue = Math.max(1, capacity);
+            return this;
+        }
+
+        public Config pendingSimulations(int capacity) {
+            this.pendingSimulations = Math.max(1, capacity);
+            return this;
+        }
+
+        public Config batchSize(int batchSize) {
+            this.batchSize = Math.max(1, batchSize);
+            return this;
+        }
+
+        public Config batchWindowMillis(long millis) {
+            this.batchWindowMillis = Math.max(0, millis);
+            return this;
+        }
+
+        public Config requestTimeoutMillis(long millis) {
+            this.requestTimeoutMillis = Math.max(1, millis);
+            return this;
+        }
+    }
+}
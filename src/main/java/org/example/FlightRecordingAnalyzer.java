@@ -0,0 +1,120 @@
+package org.example;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.*;
+
+/**
+ * Offline report over a {@code .jfr} file recorded with the {@code programs.*} events enabled:
+ * slowest battle rounds, path search hotspots per attacker and strategy, and preset generation calls.
+ */
+public final class FlightRecordingAnalyzer {
+
+    static final String ROUND = "programs.Round";
+    static final String TURN = "programs.Turn";
+    static final String PATH_SEARCH = "programs.PathSearch";
+    static final String GENERATE = "programs.GeneratePreset";
+
+    private FlightRecordingAnalyzer() {
+    }
+
+    /** Reads the recording and prints the report; returns the number of {@code programs.*} events seen. */
+    public static int report(Path recording, int top, PrintStream out) throws IOException {
+        List<RecordedEvent> rounds = new ArrayList<>();
+        List<RecordedEvent> searches = new ArrayList<>();
+        Map<String, PathStats> byAttacker = new HashMap<>();
+        int turns = 0;
+        int generates = 0;
+        Duration generateTime = Duration.ZERO;
+
+        for (RecordedEvent e : RecordingFile.readAllEvents(recording)) {
+            switch (e.getEventType().getName()) {
+                case ROUND:
+                    rounds.add(e);
+                    break;
+                case TURN:
+                    turns++;
+                    break;
+                case PATH_SEARCH:
+                    searches.add(e);
+                    String key = e.getString("attacker") + " / " + e.getString("strategy");
+                    byAttacker.computeIfAbsent(key, k -> new PathStats()).add(e);
+                    break;
+                case GENERATE:
+                    generates++;
+                    generateTime = generateTime.plus(e.getDuration());
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        Comparator<RecordedEvent> slowestFirst = (a, b) -> b.getDuration().compareTo(a.getDuration());
+        rounds.sort(slowestFirst);
+        searches.sort(slowestFirst);
+
+        out.printf("Rounds: %d, turns: %d, path searches: %d, preset generations: %d (%.3f ms total)%n",
+                rounds.size(), turns, searches.size(), generates, millis(generateTime));
+
+        out.printf("%nSlowest rounds:%n");
+        for (RecordedEvent r : rounds.subList(0, Math.min(top, rounds.size()))) {
+            out.printf("  %9.3f ms  round %-4d turns %-3d player %d->%d  computer %d->%d  [%s]%n",
+                    millis(r.getDuration()), r.getInt("round"), r.getInt("turns"),
+                    r.getInt("playerAliveBefore"), r.getInt("playerAliveAfter"),
+                    r.getInt("computerAliveBefore"), r.getInt("computerAliveAfter"),
+                    r.getThread() == null ? "?" : r.getThread().getJavaName());
+        }
+
+        out.printf("%nPath search hotspots (attacker / strategy):%n");
+        List<Map.Entry<String, PathStats>> hot = new ArrayList<>(byAttacker.entrySet());
+        hot.sort((a, b) -> b.getValue().total.compareTo(a.getValue().total));
+        for (Map.Entry<String, PathStats> h : hot.subList(0, Math.min(top, hot.size()))) {
+            PathStats s = h.getValue();
+            out.printf("  %9.3f ms total  %5d searches  %7.1f nodes avg  %4d failed  %s%n",
+                    millis(s.total), s.count, (double) s.nodes / s.count, s.failures, h.getKey());
+        }
+
+        out.printf("%nSlowest path searches:%n");
+        for (RecordedEvent p : searches.subList(0, Math.min(top, searches.size()))) {
+            out.printf("  %9.3f ms  %-13s (%d,%d)->(%d,%d)  nodes %-4d length %-3d %s  %s%n",
+                    millis(p.getDuration()), p.getString("strategy"),
+                    p.getInt("fromX"), p.getInt("fromY"), p.getInt("toX"), p.getInt("toY"),
+                    p.getInt("nodesExpanded"), p.getInt("pathLength"),
+                    p.getBoolean("success") ? "ok" : "FAILED", p.getString("attacker"));
+        }
+
+        return rounds.size() + turns + searches.size() + generates;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.err.println("usage: FlightRecordingAnalyzer <recording.jfr> [top]");
+            return;
+        }
+        int top = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        report(Path.of(args[0]), top, System.out);
+    }
+
+    private static double millis(Duration d) {
+        return d.toNanos() / 1_000_000.0;
+    }
+
+    private static final class PathStats {
+        int count;
+        int failures;
+        long nodes;
+        Duration total = Duration.ZERO;
+
+        void add(RecordedEvent e) {
+            count++;
+            nodes += e.getInt("nodesExpanded");
+            if (!e.getBoolean("success")) failures++;
+            total = total.plus(e.getDuration());
+        }
+    }
+}
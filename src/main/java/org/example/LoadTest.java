@@ -0,0 +1,118 @@
+package org.example;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Load-test harness for {@link BattleServer}: fires a fixed number of requests with a fixed
+ * concurrency at one endpoint and reports latency percentiles.
+ */
+public final class LoadTest {
+
+    private LoadTest() {
+    }
+
+    /** Sample catalogue with the four standard unit types. */
+    static List<ArmyCodec.TypeEntry> sampleTypes(int count) {
+        return Arrays.asList(
+                new ArmyCodec.TypeEntry("Archer", "Ranged", 50, 30, 20, count),
+                new ArmyCodec.TypeEntry("Knight", "Melee", 100, 40, 30, count),
+                new ArmyCodec.TypeEntry("Pikeman", "Melee", 80, 25, 20, count),
+                new ArmyCodec.TypeEntry("Swordsman", "Melee", 60, 20, 15, count)
+        );
+    }
+
+    public static Report run(URI base, String endpoint, int requests, int concurrency) throws InterruptedException {
+        byte[] payload = "simulate".equals(endpoint)
+                ? ArmyCodec.writeSimulate(sampleTypes(3), sampleTypes(3))
+                : ArmyCodec.writePreset(1500, sampleTypes(0));
+
+        ExecutorService clientPool = Executors.newFixedThreadPool(Math.max(1, concurrency));
+        HttpClient client = HttpClient.newBuilder()
+                .executor(clientPool)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        HttpRequest request = HttpRequest.newBuilder(base.resolve("/" + endpoint))
+                .timeout(Duration.ofSeconds(60))
+                .POST(HttpRequest.BodyPublishers.ofByteArray(payload))
+                .build();
+
+        long[] latencies = new long[requests];
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger errors = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, concurrency));
+
+        long start = System.nanoTime();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < concurrency; t++) {
+            futures.add(pool.submit(() -> {
+                int i;
+                while ((i = next.getAndIncrement()) < requests) {
+                    long t0 = System.nanoTime();
+                    try {
+                        HttpResponse<byte[]> resp = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+                        if (resp.statusCode() != 200) errors.incrementAndGet();
+                    } catch (Exception e) {
+                        errors.incrementAndGet();
+                    }
+                    latencies[i] = System.nanoTime() - t0;
+                }
+            }));
+        }
+        for (Future<?> f : futures) {
+            try {
+                f.get();
+            } catch (ExecutionException e) {
+                errors.incrementAndGet();
+            }
+        }
+        long wall = System.nanoTime() - start;
+        pool.shutdown();
+        clientPool.shutdown();
+
+        return new Report(latencies, errors.get(), wall);
+    }
+
+    public static final class Report {
+        private final long[] sortedNanos;
+        private final int errors;
+        private final long wallNanos;
+
+        Report(long[] latencies, int errors, long wallNanos) {
+            this.sortedNanos = latencies.clone();
+            Arrays.sort(this.sortedNanos);
+            this.errors = errors;
+            this.wallNanos = wallNanos;
+        }
+
+        public double percentileMillis(double p) {
+            if (sortedNanos.length == 0) return 0;
+            int idx = (int) Math.ceil(p / 100.0 * sortedNanos.length) - 1;
+            idx = Math.max(0, Math.min(sortedNanos.length - 1, idx));
+            return sortedNanos[idx] / 1_000_000.0;
+        }
+
+        public int getErrors() {
+            return errors;
+        }
+
+        public double throughputPerSecond() {
+            return wallNanos == 0 ? 0 : sortedNanos.length * 1e9 / wallNanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("requests=%d errors=%d p50=%.2fms p99=%.2fms max=%.2fms throughput=%.1f/s",
+                    sortedNanos.length, errors, percentileMillis(50), percentileMillis(99),
+                    percentileMillis(100), throughputPerSecond());
+        }
+    }
+}
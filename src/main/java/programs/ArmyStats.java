@@ -0,0 +1,32 @@
+package programs;
+
+import com.battle.heroes.army.Army;
+import com.battle.heroes.army.Unit;
+
+/**
+ * Подсчёты по живым юнитам армии. Армия без списка юнитов считается пустой.
+ */
+final class ArmyStats {
+
+    private ArmyStats() {
+    }
+
+    static int countAlive(Army army) {
+        if (army == null || army.getUnits() == null) return 0;
+        int n = 0;
+        for (Unit u : army.getUnits()) {
+            if (u != null && u.isAlive()) n++;
+        }
+        return n;
+    }
+
+    // здоровье живых юнитов; гибель юнита тоже уменьшает сумму
+    static long healthLeft(Army army) {
+        if (army == null || army.getUnits() == null) return 0;
+        long sum = 0;
+        for (Unit u : army.getUnits()) {
+            if (u != null && u.isAlive()) sum += Math.max(0, u.getHealth());
+        }
+        return sum;
+    }
+}
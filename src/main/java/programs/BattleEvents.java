@@ -0,0 +1,129 @@
+package programs;
+
+import jdk.jfr.*;
+
+/**
+ * События JDK Flight Recorder для симуляции, поиска пути и генерации пресета.
+ * <p>
+ * Все события по умолчанию выключены ({@code @Enabled(false)}): пока запись не включила их явно,
+ * {@code shouldCommit()} возвращает false и поля не заполняются.
+ * Включить — {@link #enableAll(Recording)} или настройками {@code programs.*#enabled=true} в .jfc.
+ */
+public final class BattleEvents {
+
+    private BattleEvents() {
+    }
+
+    public static void enableAll(Recording recording) {
+        recording.enable(RoundEvent.class);
+        recording.enable(TurnEvent.class);
+        recording.enable(PathSearchEvent.class);
+        recording.enable(GeneratePresetEvent.class);
+    }
+
+    @Name("programs.Round")
+    @Label("Battle Round")
+    @Category({"Heroes", "Battle"})
+    @Enabled(false)
+    @StackTrace(false)
+    public static final class RoundEvent extends Event {
+        @Label("Round")
+        int round;
+
+        @Label("Player Alive At Start")
+        int playerAliveBefore;
+
+        @Label("Computer Alive At Start")
+        int computerAliveBefore;
+
+        @Label("Player Alive At End")
+        int playerAliveAfter;
+
+        @Label("Computer Alive At End")
+        int computerAliveAfter;
+
+        @Label("Turns")
+        int turns;
+    }
+
+    @Name("programs.Turn")
+    @Label("Unit Turn")
+    @Category({"Heroes", "Battle"})
+    @Enabled(false)
+    @StackTrace(false)
+    public static final class TurnEvent extends Event {
+        @Label("Round")
+        int round;
+
+        @Label("Player Side")
+        boolean player;
+
+        @Label("Attacker")
+        String attacker;
+
+        @Label("Attacker Type")
+        String attackerType;
+
+        @Label("Target")
+        String target;
+
+        @Label("Target Killed")
+        boolean targetKilled;
+    }
+
+    @Name("programs.PathSearch")
+    @Label("Path Search")
+    @Category({"Heroes", "Pathfinding"})
+    @Enabled(false)
+    @StackTrace(false)
+    public static final class PathSearchEvent extends Event {
+        @Label("Attacker")
+        String attacker;
+
+        @Label("Strategy")
+        String strategy;
+
+        @Label("From X")
+        int fromX;
+
+        @Label("From Y")
+        int fromY;
+
+        @Label("To X")
+        int toX;
+
+        @Label("To Y")
+        int toY;
+
+        @Label("Nodes Expanded")
+        int nodesExpanded;
+
+        @Label("Path Length")
+        int pathLength;
+
+        @Label("Success")
+        boolean success;
+    }
+
+    @Name("programs.GeneratePreset")
+    @Label("Generate Preset")
+    @Category({"Heroes", "Preset"})
+    @Enabled(false)
+    @StackTrace(false)
+    public static final class GeneratePresetEvent extends Event {
+        @Label("Catalogue Size")
+        int catalogueSize;
+
+        @Label("Types After Pruning")
+        int keptTypes;
+
+        @Label("Max Points")
+        int maxPoints;
+
+        @Label("Points Spent")
+        int pointsSpent;
+
+        @Label("Units")
+        int units;
+    }
+}
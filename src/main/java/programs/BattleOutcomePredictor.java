@@ -0,0 +1,297 @@
+package programs;
+
+import com.battle.heroes.army.Army;
+import com.battle.heroes.army.Unit;
+import com.battle.heroes.army.programs.SimulateBattle;
+
+import java.util.*;
+
+/**
+ * Быстрая аналитическая оценка исхода боя без поиска путей и без вызова программ юнитов.
+ * <p>
+ * Первые {@code lookaheadRounds} раундов разыгрываются "на числах" по тем же правилам очередности,
+ * что и в {@link SimulateBattleImpl} (убывание baseAttack, чередование армий, урон = baseAttack),
+ * цель каждой атаки — самый слабый живой юнит противника. Если за это время бой не закончился,
+ * остаток оценивается по квадратичному закону Ланчестера: сила стороны = суммарная атака * суммарное здоровье.
+ * <p>
+ * Предсказатель не изменяет переданные армии.
+ */
+public final class BattleOutcomePredictor {
+
+    private static final int DEFAULT_LOOKAHEAD_ROUNDS = 2;
+
+    private final int lookaheadRounds;
+
+    public BattleOutcomePredictor() {
+        this(DEFAULT_LOOKAHEAD_ROUNDS);
+    }
+
+    public BattleOutcomePredictor(int lookaheadRounds) {
+        this.lookaheadRounds = Math.max(0, lookaheadRounds);
+    }
+
+    public Prediction predict(Army playerArmy, Army computerArmy) {
+        SideState player = SideState.of(playerArmy);
+        SideState computer = SideState.of(computerArmy);
+
+        int rounds = 0;
+        while (player.alive > 0 && computer.alive > 0 && rounds < lookaheadRounds) {
+            playRound(player, computer);
+            rounds++;
+        }
+
+        if (player.alive == 0 || computer.alive == 0) {
+            Side winner = player.alive > 0 ? Side.PLAYER : (computer.alive > 0 ? Side.COMPUTER : Side.DRAW);
+            return new Prediction(winner, rounds, player.alive, computer.alive);
+        }
+
+        return extrapolate(player, computer, rounds);
+    }
+
+    /**
+     * Сравнивает предсказания с полной симуляцией на корпусе боёв.
+     * Предсказание снимается до симуляции, так как симуляция изменяет армии.
+     */
+    public Calibration calibrate(List<Matchup> corpus, SimulateBattle simulator) throws InterruptedException {
+        Objects.requireNonNull(simulator);
+        Calibration calibration = new Calibration();
+        if (corpus == null) return calibration;
+
+        for (Matchup m : corpus) {
+            if (m == null) continue;
+
+            long t0 = System.nanoTime();
+            Prediction p = predict(m.player, m.computer);
+            long t1 = System.nanoTime();
+            simulator.simulate(m.player, m.computer);
+            long t2 = System.nanoTime();
+
+            int playerLeft = ArmyStats.countAlive(m.player);
+            int computerLeft = ArmyStats.countAlive(m.computer);
+            // бой, в котором обе стороны выжили (ничья по простою или пределу раундов), — ничья
+            Side actual = playerLeft > 0 && computerLeft == 0 ? Side.PLAYER
+                    : (computerLeft > 0 && playerLeft == 0 ? Side.COMPUTER : Side.DRAW);
+
+            calibration.record(p, actual, playerLeft, computerLeft, t1 - t0, t2 - t1);
+        }
+        return calibration;
+    }
+
+    // ---------- модель раунда ----------
+
+    private void playRound(SideState player, SideState computer) {
+        int pi = 0;
+        int ci = 0;
+        boolean playerTurn = player.topAttack() >= computer.topAttack();
+
+        // как в SimulateBattleImpl: пока хотя бы у одной стороны остались ходы в раунде
+        while (true) {
+            pi = player.nextAliveFrom(pi);
+            ci = computer.nextAliveFrom(ci);
+            if (pi < 0 && ci < 0) return;
+
+            if (playerTurn) {
+                if (pi >= 0) computer.takeHit(player.attack[pi++]);
+            } else {
+                if (ci >= 0) player.takeHit(computer.attack[ci++]);
+            }
+            playerTurn = !playerTurn;
+
+            if (player.alive == 0 || computer.alive == 0) return;
+        }
+    }
+
+    private Prediction extrapolate(SideState player, SideState computer, int roundsSoFar) {
+        long playerFire = player.totalAttack();
+        long computerFire = computer.totalAttack();
+        long playerHp = player.totalHealth();
+        long computerHp = computer.totalHealth();
+
+        // никто не может нанести урон: бой не закончится, обе стороны выживают
+        if (playerFire == 0 && computerFire == 0) {
+            return new Prediction(Side.DRAW, roundsSoFar, player.alive, computer.alive);
+        }
+
+        double playerStrength = (double) playerFire * playerHp;
+        double computerStrength = (double) computerFire * computerHp;
+
+        Side winner;
+        if (playerStrength != computerStrength) {
+            winner = playerStrength > computerStrength ? Side.PLAYER : Side.COMPUTER;
+        } else {
+            winner = player.topAttack() >= computer.topAttack() ? Side.PLAYER : Side.COMPUTER;
+        }
+
+        SideState w = winner == Side.PLAYER ? player : computer;
+        double strongest = Math.max(playerStrength, computerStrength);
+        double weakest = Math.min(playerStrength, computerStrength);
+        double survivorShare = strongest <= 0 ? 0 : Math.sqrt(Math.max(0, 1 - weakest / strongest));
+        int survivors = Math.max(1, (int) Math.round(w.alive * survivorShare));
+
+        // огонь победителя падает линейно от полного до доли выживших
+        long loserHp = winner == Side.PLAYER ? computerHp : playerHp;
+        double avgFire = w.totalAttack() * (1 + survivorShare) / 2;
+        int remainingRounds = avgFire <= 0 ? 0 : (int) Math.ceil(loserHp / avgFire);
+
+        return winner == Side.PLAYER
+                ? new Prediction(winner, roundsSoFar + remainingRounds, survivors, 0)
+                : new Prediction(winner, roundsSoFar + remainingRounds, 0, survivors);
+    }
+
+    // ---------- состояние стороны ----------
+
+    /** Снимок живых юнитов стороны, упорядоченный по убыванию атаки (как очередь ходов). */
+    private static final class SideState {
+        final int[] attack;
+        final int[] health;
+        int alive;
+
+        private SideState(int[] attack, int[] health) {
+            this.attack = attack;
+            this.health = health;
+            this.alive = attack.length;
+        }
+
+        static SideState of(Army army) {
+            List<Unit> units = new ArrayList<>();
+            if (army != null && army.getUnits() != null) {
+                for (Unit u : army.getUnits()) {
+                    if (u != null && u.isAlive()) units.add(u);
+                }
+            }
+            // стабильная сортировка сохраняет порядок внутри равной атаки, как seq в SimulateBattleImpl
+            units.sort((a, b) -> Integer.compare(b.getBaseAttack(), a.getBaseAttack()));
+
+            int[] attack = new int[units.size()];
+            int[] health = new int[units.size()];
+            for (int i = 0; i < units.size(); i++) {
+                attack[i] = units.get(i).getBaseAttack();
+                health[i] = Math.max(1, units.get(i).getHealth());
+            }
+            return new SideState(attack, health);
+        }
+
+        int nextAliveFrom(int i) {
+            if (i < 0) return -1;
+            for (; i < health.length; i++) {
+                if (health[i] > 0) return i;
+            }
+            return -1;
+        }
+
+        int topAttack() {
+            int i = nextAliveFrom(0);
+            return i < 0 ? Integer.MIN_VALUE : attack[i];
+        }
+
+        void takeHit(int damage) {
+            int weakest = -1;
+            for (int i = 0; i < health.length; i++) {
+                if (health[i] > 0 && (weakest < 0 || health[i] < health[weakest])) weakest = i;
+            }
+            if (weakest < 0) return;
+            health[weakest] -= damage;
+            if (health[weakest] <= 0) alive--;
+        }
+
+        long totalAttack() {
+            long sum = 0;
+            for (int i = 0; i < health.length; i++) {
+                if (health[i] > 0) sum += attack[i];
+            }
+            return sum;
+        }
+
+        long totalHealth() {
+            long sum = 0;
+            for (int h : health) {
+                if (h > 0) sum += h;
+            }
+            return sum;
+        }
+    }
+
+    // ---------- результаты ----------
+
+    public enum Side { PLAYER, COMPUTER, DRAW }
+
+    public static final class Prediction {
+        private final Side winner;
+        private final int rounds;
+        private final int playerSurvivors;
+        private final int computerSurvivors;
+
+        Prediction(Side winner, int rounds, int playerSurvivors, int computerSurvivors) {
+            this.winner = winner;
+            this.rounds = rounds;
+            this.playerSurvivors = playerSurvivors;
+            this.computerSurvivors = computerSurvivors;
+        }
+
+        public Side getWinner() {
+            return winner;
+        }
+
+        public int getRounds() {
+            return rounds;
+        }
+
+        public int getPlayerSurvivors() {
+            return playerSurvivors;
+        }
+
+        public int getComputerSurvivors() {
+            return computerSurvivors;
+        }
+    }
+
+    public static final class Matchup {
+        final Army player;
+        final Army computer;
+
+        public Matchup(Army player, Army computer) {
+            this.player = Objects.requireNonNull(player);
+            this.computer = Objects.requireNonNull(computer);
+        }
+    }
+
+    /** Точность предсказателя относительно полной симуляции. */
+    public static final class Calibration {
+        private int samples;
+        private int correctWinners;
+        private long survivorError;
+        private long predictNanos;
+        private long simulateNanos;
+
+        void record(Prediction p, Side actual, int playerLeft, int computerLeft,
+                    long predictTime, long simulateTime) {
+            samples++;
+            if (p.winner == actual) correctWinners++;
+            survivorError += Math.abs(p.playerSurvivors - playerLeft) + Math.abs(p.computerSurvivors - computerLeft);
+            predictNanos += predictTime;
+            simulateNanos += simulateTime;
+        }
+
+        public int getSamples() {
+            return samples;
+        }
+
+        /** Доля боёв, где победитель угадан верно. */
+        public double winnerAccuracy() {
+            return samples == 0 ? 0 : (double) correctWinners / samples;
+        }
+
+        /** Средняя абсолютная ошибка числа выживших (сумма по обеим сторонам). */
+        public double meanSurvivorError() {
+            return samples == 0 ? 0 : (double) survivorError / samples;
+        }
+
+        public double meanPredictMicros() {
+            return samples == 0 ? 0 : predictNanos / 1_000.0 / samples;
+        }
+
+        public double meanSimulateMicros() {
+            return samples == 0 ? 0 : simulateNanos / 1_000.0 / samples;
+        }
+    }
+}
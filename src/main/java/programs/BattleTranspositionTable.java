@@ -0,0 +1,284 @@
+package programs;
+
+import com.battle.heroes.army.Army;
+import com.battle.heroes.army.Unit;
+
+import java.util.*;
+
+/**
+ * Таблица транспозиций для {@link SimulateBattleImpl}: состояние поля на границе раунда
+ * (тип, здоровье, координаты и флаг жизни каждого юнита обеих армий) -> итоговое состояние боя.
+ * <p>
+ * Ключ строится хешированием Зобриста: у каждого юнита свой вклад, ключ поля — сумма вкладов.
+ * Сумма, а не XOR: одинаковые вклады (например, два мёртвых юнита одного типа на одной клетке)
+ * при XOR взаимно уничтожились бы. Порядок юнитов в армии важен только среди живых юнитов с равной
+ * атакой: {@link SimulateBattleImpl} разрешает ничью по порядку в списке армии, поэтому место юнита
+ * в этой очереди входит в его вклад. Для проверки коллизий хранится второй хеш: вклады по отдельно
+ * засеянной таблице Зобриста последовательно смешиваются в каноническом порядке юнитов, поэтому
+ * совпадение вкладов в ключ не влечёт совпадения проверочного хеша.
+ * <p>
+ * Юнит в ключе описан только названием типа, здоровьем, атакой и положением. Поэтому одну таблицу
+ * нельзя делить между каталогами, в которых под одним unitType стоят разные программы или разный
+ * attackType: их бои получат общие ключи.
+ * <p>
+ * Повторное использование результата корректно только в детерминированном режиме, когда
+ * программы юнитов не используют случайность (стандартные программы перемешивают цели).
+ * Зеркальная нормализация (отражение по x с обменом сторон) включается отдельно и допустима,
+ * только если программы обеих сторон симметричны.
+ * <p>
+ * Память ограничена: при переполнении вытесняется давно не использованная запись (LRU).
+ */
+public final class BattleTranspositionTable {
+
+    // [сторона][жив][клетка], фиксированные seed — ключи стабильны между запусками
+    private static final Zobrist KEY = new Zobrist(0x5EED_B477L, 0x9E3779B97F4A7C15L, 0xD1B54A32D192ED03L);
+    private static final Zobrist CHECK = new Zobrist(0xC4EC_6A11L, 0xC2B2AE3D27D4EB4FL, 0x165667B19E3779F9L);
+
+    private final int maxEntries;
+    private final boolean mirrorNormalization;
+    private final Map<Long, Entry> entries;
+
+    private long lookups;
+    private long hits;
+    private long stores;
+    private long evictions;
+
+    public BattleTranspositionTable(int maxEntries) {
+        this(maxEntries, false);
+    }
+
+    public BattleTranspositionTable(int maxEntries, boolean mirrorNormalization) {
+        this.maxEntries = Math.max(1, maxEntries);
+        this.mirrorNormalization = mirrorNormalization;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+                if (size() > BattleTranspositionTable.this.maxEntries) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /** Снимок состояния поля на границе раунда. */
+    RoundState snapshot(Army playerArmy, Army computerArmy) {
+        List<Unit> player = aliveOrDead(playerArmy);
+        List<Unit> computer = aliveOrDead(computerArmy);
+
+        RoundState identity = RoundState.of(player, computer, false);
+        if (!mirrorNormalization || topAttack(player) == topAttack(computer)) {
+            // при равной атаке первым ходит игрок, обмен сторон меняет исход
+            return identity;
+        }
+        RoundState mirrored = RoundState.of(player, computer, true);
+        return Long.compareUnsigned(mirrored.key, identity.key) < 0 ? mirrored : identity;
+    }
+
+    /**
+     * Если состояние уже встречалось, переносит на юниты итоговое состояние боя и возвращает true.
+     */
+    synchronized boolean tryApply(RoundState state) {
+        lookups++;
+        Entry e = entries.get(state.key);
+        if (e == null || e.check != state.check || e.health.length != state.units.length) {
+            return false;
+        }
+        hits++;
+
+        for (int i = 0; i < state.units.length; i++) {
+            Unit u = state.units[i];
+            u.setHealth(e.health[i]);
+            u.setxCoordinate(state.mirrored ? Board.WIDTH - 1 - e.x[i] : e.x[i]);
+            u.setyCoordinate(e.y[i]);
+            u.setAlive(e.alive[i]);
+        }
+        return true;
+    }
+
+    /** Запоминает итог боя для всех состояний, пройденных на границах раундов. */
+    synchronized void storeOutcome(List<RoundState> visited) {
+        for (RoundState state : visited) {
+            int n = state.units.length;
+            Entry e = new Entry(state.check, n);
+            for (int i = 0; i < n; i++) {
+                Unit u = state.units[i];
+                e.health[i] = u.getHealth();
+                e.x[i] = state.mirrored ? Board.WIDTH - 1 - u.getxCoordinate() : u.getxCoordinate();
+                e.y[i] = u.getyCoordinate();
+                e.alive[i] = u.isAlive();
+            }
+            entries.put(state.key, e);
+            stores++;
+        }
+    }
+
+    // ---------- метрики ----------
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long getLookups() {
+        return lookups;
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getStores() {
+        return stores;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    public synchronized double hitRate() {
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    // ---------- хеширование ----------
+
+    private static List<Unit> aliveOrDead(Army army) {
+        if (army == null || army.getUnits() == null) return Collections.emptyList();
+        List<Unit> out = new ArrayList<>(army.getUnits().size());
+        for (Unit u : army.getUnits()) {
+            if (u != null) out.add(u);
+        }
+        return out;
+    }
+
+    private static int topAttack(List<Unit> units) {
+        int best = Integer.MIN_VALUE;
+        for (Unit u : units) {
+            if (u.isAlive()) best = Math.max(best, u.getBaseAttack());
+        }
+        return best;
+    }
+
+    private static long contribution(Zobrist z, Unit u, int side, boolean mirrored, int tieRank) {
+        int x = mirrored ? Board.WIDTH - 1 - u.getxCoordinate() : u.getxCoordinate();
+        int y = u.getyCoordinate();
+        int s = mirrored ? 1 - side : side;
+        int a = u.isAlive() ? 1 : 0;
+
+        long pos = Board.inside(x, y)
+                ? z.cells[s][a][x * Board.HEIGHT + y]
+                : SplitMix64.mix(z.offBoard ^ (((long) x << 32) | (y & 0xffffffffL)) ^ ((long) s << 1 | a));
+
+        long typeAndStats = Objects.hashCode(u.getUnitType()) * z.typeMul
+                + ((long) u.getHealth() << 32) + u.getBaseAttack()
+                + tieRank * z.rankMul;
+        return SplitMix64.mix(pos ^ SplitMix64.mix(typeAndStats ^ z.offBoard));
+    }
+
+    static final class RoundState {
+        final long key;
+        final long check;
+        final boolean mirrored;
+        final Unit[] units; // в порядке возрастания вклада — канонический порядок
+
+        private RoundState(long key, long check, boolean mirrored, Unit[] units) {
+            this.key = key;
+            this.check = check;
+            this.mirrored = mirrored;
+            this.units = units;
+        }
+
+        static RoundState of(List<Unit> player, List<Unit> computer, boolean mirrored) {
+            int n = player.size() + computer.size();
+            long[] contrib = new long[n];
+            long[] checks = new long[n];
+            Unit[] units = new Unit[n];
+
+            int i = 0;
+            int[] ranks = tieRanks(player);
+            for (int k = 0; k < player.size(); k++) {
+                units[i] = player.get(k);
+                checks[i] = contribution(CHECK, player.get(k), 0, mirrored, ranks[k]);
+                contrib[i++] = contribution(KEY, player.get(k), 0, mirrored, ranks[k]);
+            }
+            ranks = tieRanks(computer);
+            for (int k = 0; k < computer.size(); k++) {
+                units[i] = computer.get(k);
+                checks[i] = contribution(CHECK, computer.get(k), 1, mirrored, ranks[k]);
+                contrib[i++] = contribution(KEY, computer.get(k), 1, mirrored, ranks[k]);
+            }
+
+            long key = 0;
+            for (int k = 0; k < n; k++) {
+                key += contrib[k];
+            }
+
+            Integer[] order = new Integer[n];
+            for (int k = 0; k < n; k++) order[k] = k;
+            Arrays.sort(order, (p, q) -> Long.compare(contrib[p], contrib[q]));
+
+            // равные вклады в ключ дают равные проверочные вклады, так что их порядок не важен
+            Unit[] sorted = new Unit[n];
+            long check = n;
+            for (int k = 0; k < n; k++) {
+                sorted[k] = units[order[k]];
+                check = SplitMix64.mix(check + checks[order[k]]);
+            }
+
+            return new RoundState(key, check, mirrored, sorted);
+        }
+
+        // номер живого юнита среди живых юнитов своей стороны с той же атакой, в порядке списка армии;
+        // у мёртвых 0 — они не ходят
+        private static int[] tieRanks(List<Unit> side) {
+            int[] ranks = new int[side.size()];
+            Map<Integer, Integer> seen = new HashMap<>();
+            for (int k = 0; k < ranks.length; k++) {
+                Unit u = side.get(k);
+                if (u.isAlive()) ranks[k] = seen.merge(u.getBaseAttack(), 1, Integer::sum);
+            }
+            return ranks;
+        }
+    }
+
+    private static final class Zobrist {
+        final long[][][] cells = new long[2][2][Board.CELLS];
+        final long offBoard;
+        final long typeMul;
+        final long rankMul;
+
+        Zobrist(long seed, long typeMul, long rankMul) {
+            SplittableRandom rnd = new SplittableRandom(seed);
+            for (int s = 0; s < 2; s++) {
+                for (int a = 0; a < 2; a++) {
+                    for (int c = 0; c < Board.CELLS; c++) {
+                        cells[s][a][c] = rnd.nextLong();
+                    }
+                }
+            }
+            this.offBoard = rnd.nextLong();
+            this.typeMul = typeMul;
+            this.rankMul = rankMul;
+        }
+    }
+
+    private static final class Entry {
+        final long check;
+        final int[] health;
+        final int[] x;
+        final int[] y;
+        final boolean[] alive;
+
+        Entry(long check, int n) {
+            this.check = check;
+            this.health = new int[n];
+            this.x = new int[n];
+            this.y = new int[n];
+            this.alive = new boolean[n];
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package programs;
+
+/**
+ * Геометрия поля боя: 27x21 клеток, клетка (x, y) имеет номер {@code x * HEIGHT + y},
+ * юнит ходит в 8 направлениях.
+ */
+final class Board {
+
+    static final int WIDTH = 27;
+    static final int HEIGHT = 21;
+    static final int CELLS = WIDTH * HEIGHT;
+
+    // 8 направлений (включая диагонали)
+    static final int[] DX = {-1, -1, -1, 0, 0, 1, 1, 1};
+    static final int[] DY = {-1, 0, 1, -1, 1, -1, 0, 1};
+
+    private Board() {
+    }
+
+    static boolean inside(int x, int y) {
+        return x >= 0 && x < WIDTH && y >= 0 && y < HEIGHT;
+    }
+}
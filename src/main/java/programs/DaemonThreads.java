@@ -0,0 +1,23 @@
+package programs;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Фабрика потоков-демонов с именами {@code prefix-1}, {@code prefix-2}, ...: пулы расчётов и сервера
+ * не мешают JVM завершиться.
+ */
+public final class DaemonThreads {
+
+    private DaemonThreads() {
+    }
+
+    public static ThreadFactory named(String prefix) {
+        AtomicLong seq = new AtomicLong();
+        return r -> {
+            Thread t = new Thread(r, prefix + "-" + seq.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+}
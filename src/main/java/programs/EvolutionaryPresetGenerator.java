@@ -0,0 +1,458 @@
+package programs;
+
+import com.battle.heroes.army.Army;
+import com.battle.heroes.army.Unit;
+import com.battle.heroes.army.programs.GeneratePreset;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Генерация пресета стохастическим поиском: генетический алгоритм по векторам количеств юнитов каждого типа.
+ * <p>
+ * Особь — вектор {@code counts[i]} в пределах 0..11 с суммарной стоимостью не больше maxPoints
+ * и не больше 63 юнитов (столько помещается на сторону поля). После скрещивания и мутации особь «чинится»:
+ * лишние юниты случайно убираются, остаток бюджета случайно добирается доступными типами.
+ * <p>
+ * Приспособленность — средний результат боёв без интерфейса ({@link HeadlessBattle}) против набора эталонных армий,
+ * кандидат играет за компьютер: победа 1, ничья 0.5, поражение 0, плюс до ±0.1 за разницу оставшегося здоровья.
+ * По умолчанию эталоны — пресет {@link GeneratePresetImpl} на том же каталоге и несколько случайных допустимых армий.
+ * Особи поколения оцениваются параллельно на пуле потоков, уже оценённые векторы берутся из кэша.
+ * <p>
+ * Все случайные решения поиска принимаются в вызывающем потоке из одного генератора с заданным seed.
+ * Бои идут через {@link HeadlessBattle#run(Army, Army, long)} с seed, выведенным из seed поиска,
+ * вектора количеств и номера боя, поэтому оценка особи не зависит ни от потока, ни от порядка оценки.
+ * При бюджете по поколениям один и тот же seed даёт один и тот же пресет.
+ */
+public final class EvolutionaryPresetGenerator implements GeneratePreset {
+
+    private static final int MAX_UNITS_PER_TYPE = 11;
+    private static final int MAX_UNITS = HeadlessBattle.MAX_UNITS_PER_SIDE;
+
+    private final Config config;
+    private final Fitness fitness;
+
+    public EvolutionaryPresetGenerator() {
+        this(new Config());
+    }
+
+    public EvolutionaryPresetGenerator(Config config) {
+        this(config, null);
+    }
+
+    // fitness == null -> бои против эталонов; другая оценка — для тестов
+    EvolutionaryPresetGenerator(Config config, Fitness fitness) {
+        this.config = Objects.requireNonNull(config);
+        if (config.generations <= 0 && config.timeBudgetMillis <= 0) {
+            throw new IllegalArgumentException("Either a generation budget or a time budget must be set");
+        }
+        this.fitness = fitness;
+    }
+
+    @Override
+    public Army generate(List<Unit> unitList, int maxPoints) {
+        List<Unit> types = affordableTypes(unitList, maxPoints);
+        if (types.isEmpty()) {
+            return armyOf(types, new int[0]);
+        }
+
+        SplittableRandom rnd = new SplittableRandom(config.seed);
+        Search search = new Search(types, maxPoints, rnd);
+
+        Army greedy = new GeneratePresetImpl().generate(unitList, maxPoints);
+        Fitness f = fitness != null
+                ? fitness
+                : new BattleFitness(opponents(greedy, search), config.battlesPerOpponent, config.seed);
+
+        ExecutorService pool = Executors.newFixedThreadPool(config.threads, DaemonThreads.named("preset-fitness"));
+        try {
+            return armyOf(types, search.run(search.countsOf(greedy), f, pool));
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private List<Army> opponents(Army greedy, Search search) {
+        if (config.opponents != null) {
+            return config.opponents;
+        }
+        List<Army> result = new ArrayList<>();
+        result.add(greedy);
+        for (int i = 0; i < config.randomOpponents; i++) {
+            result.add(armyOf(search.types, search.randomGenome()));
+        }
+        return result;
+    }
+
+    // по одному прототипу на тип; типы, которые не влезают в бюджет даже поодиночке, не нужны
+    private static List<Unit> affordableTypes(List<Unit> unitList, int maxPoints) {
+        List<Unit> types = new ArrayList<>();
+        if (unitList == null || maxPoints <= 0) return types;
+
+        Set<String> seen = new HashSet<>();
+        for (Unit u : unitList) {
+            if (u == null || u.getCost() <= 0 || u.getCost() > maxPoints) continue;
+            if (seen.add(u.getUnitType())) types.add(u);
+        }
+        return types;
+    }
+
+    static Army armyOf(List<Unit> types, int[] counts) {
+        GeneratePresetImpl.DefaultUnitFactory factory = new GeneratePresetImpl.DefaultUnitFactory();
+        List<Unit> units = new ArrayList<>();
+        int points = 0;
+        for (int i = 0; i < counts.length; i++) {
+            Unit base = types.get(i);
+            for (int k = 1; k <= counts[i]; k++) {
+                units.add(factory.createFrom(base, k));
+            }
+            points += counts[i] * base.getCost();
+        }
+        Army army = new Army(units);
+        army.setPoints(points);
+        return army;
+    }
+
+    // ---------- Search ----------
+
+    private final class Search {
+        final List<Unit> types;
+        final int[] cost;
+        final int maxPoints;
+        final SplittableRandom rnd;
+
+        Search(List<Unit> types, int maxPoints, SplittableRandom rnd) {
+            this.types = types;
+            this.maxPoints = maxPoints;
+            this.rnd = rnd;
+            this.cost = new int[types.size()];
+            for (int i = 0; i < cost.length; i++) {
+                cost[i] = types.get(i).getCost();
+            }
+        }
+
+        int[] run(int[] seed, Fitness f, ExecutorService pool) {
+            long deadline = config.timeBudgetMillis > 0
+                    ? System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(config.timeBudgetMillis)
+                    : Long.MAX_VALUE;
+            Map<Genome, Double> cache = new HashMap<>();
+
+            List<int[]> population = new ArrayList<>();
+            population.add(seed);
+            while (population.size() < config.populationSize) {
+                population.add(randomGenome());
+            }
+
+            int[] best = seed;
+            double bestScore = Double.NEGATIVE_INFINITY;
+            for (int generation = 1; ; generation++) {
+                double[] scores;
+                try {
+                    scores = evaluate(population, cache, f, pool);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return best;
+                }
+
+                Integer[] order = new Integer[population.size()];
+                for (int i = 0; i < order.length; i++) order[i] = i;
+                Arrays.sort(order, (a, b) -> Double.compare(scores[b], scores[a]));
+                if (scores[order[0]] > bestScore) {
+                    bestScore = scores[order[0]];
+                    best = population.get(order[0]);
+                }
+
+                if (config.generations > 0 && generation >= config.generations) break;
+                if (System.nanoTime() >= deadline) break;
+
+                List<int[]> next = new ArrayList<>(population.size());
+                for (int i = 0; i < Math.min(config.elite, order.length); i++) {
+                    next.add(population.get(order[i]));
+                }
+                while (next.size() < config.populationSize) {
+                    int[] a = population.get(tournament(scores));
+                    int[] b = population.get(tournament(scores));
+                    int[] child = rnd.nextDouble() < config.crossoverRate ? crossover(a, b) : a.clone();
+                    mutate(child);
+                    repair(child);
+                    next.add(child);
+                }
+                population = next;
+            }
+            return best;
+        }
+
+        private double[] evaluate(List<int[]> population, Map<Genome, Double> cache,
+                                  Fitness f, ExecutorService pool) throws InterruptedException {
+            Map<Genome, Callable<Double>> pending = new LinkedHashMap<>();
+            for (int[] counts : population) {
+                Genome g = new Genome(counts);
+                if (!cache.containsKey(g)) pending.put(g, () -> f.score(types, counts));
+            }
+
+            List<Genome> keys = new ArrayList<>(pending.keySet());
+            List<Future<Double>> results = pool.invokeAll(pending.values());
+            for (int i = 0; i < keys.size(); i++) {
+                try {
+                    cache.put(keys.get(i), results.get(i).get());
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException("Fitness evaluation failed", e.getCause());
+                }
+            }
+
+            double[] scores = new double[population.size()];
+            for (int i = 0; i < scores.length; i++) {
+                scores[i] = cache.get(new Genome(population.get(i)));
+            }
+            return scores;
+        }
+
+        private int tournament(double[] scores) {
+            int best = rnd.nextInt(scores.length);
+            for (int i = 1; i < config.tournamentSize; i++) {
+                int c = rnd.nextInt(scores.length);
+                if (scores[c] > scores[best]) best = c;
+            }
+            return best;
+        }
+
+        private int[] crossover(int[] a, int[] b) {
+            int[] child = new int[a.length];
+            for (int i = 0; i < child.length; i++) {
+                child[i] = rnd.nextBoolean() ? a[i] : b[i];
+            }
+            return child;
+        }
+
+        // несколько точечных сдвигов количества на ±1..3
+        private void mutate(int[] counts) {
+            int moves = 1 + rnd.nextInt(3);
+            for (int m = 0; m < moves; m++) {
+                int i = rnd.nextInt(counts.length);
+                int delta = 1 + rnd.nextInt(3);
+                counts[i] += rnd.nextBoolean() ? delta : -delta;
+            }
+        }
+
+        int[] randomGenome() {
+            int[] counts = new int[types.size()];
+            repair(counts);
+            return counts;
+        }
+
+        int[] countsOf(Army army) {
+            Map<String, Integer> index = new HashMap<>();
+            for (int i = 0; i < types.size(); i++) {
+                index.put(types.get(i).getUnitType(), i);
+            }
+            int[] counts = new int[types.size()];
+            for (Unit u : army.getUnits()) {
+                Integer i = index.get(u.getUnitType());
+                if (i != null) counts[i]++;
+            }
+            repair(counts);
+            return counts;
+        }
+
+        /** Приводит вектор к допустимому: 0..11 на тип, бюджет, 63 юнита; затем случайно добирает остаток бюджета. */
+        void repair(int[] counts) {
+            int spent = 0;
+            int units = 0;
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] = Math.max(0, Math.min(MAX_UNITS_PER_TYPE, counts[i]));
+                spent += counts[i] * cost[i];
+                units += counts[i];
+            }
+
+            int[] candidates = new int[counts.length];
+            while (spent > maxPoints || units > MAX_UNITS) {
+                int n = 0;
+                for (int i = 0; i < counts.length; i++) {
+                    if (counts[i] > 0) candidates[n++] = i;
+                }
+                int i = candidates[rnd.nextInt(n)];
+                counts[i]--;
+                spent -= cost[i];
+                units--;
+            }
+
+            while (units < MAX_UNITS) {
+                int n = 0;
+                for (int i = 0; i < counts.length; i++) {
+                    if (counts[i] < MAX_UNITS_PER_TYPE && spent + cost[i] <= maxPoints) candidates[n++] = i;
+                }
+                if (n == 0) break;
+                int i = candidates[rnd.nextInt(n)];
+                counts[i]++;
+                spent += cost[i];
+                units++;
+            }
+        }
+    }
+
+    private static final class Genome {
+        final int[] counts;
+        final int hash;
+
+        Genome(int[] counts) {
+            this.counts = counts;
+            this.hash = Arrays.hashCode(counts);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Genome && Arrays.equals(counts, ((Genome) o).counts);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    // ---------- Fitness ----------
+
+    /** Оценка вектора количеств; вызывается из нескольких потоков одновременно. */
+    interface Fitness {
+        double score(List<Unit> types, int[] counts) throws InterruptedException;
+    }
+
+    static final class BattleFitness implements Fitness {
+        private final List<Army> opponents;
+        private final int battlesPerOpponent;
+        private final long seed;
+
+        BattleFitness(List<Army> opponents, int battlesPerOpponent, long seed) {
+            if (opponents.isEmpty()) {
+                throw new IllegalArgumentException("At least one reference opponent is required");
+            }
+            this.opponents = opponents;
+            this.battlesPerOpponent = battlesPerOpponent;
+            this.seed = seed;
+        }
+
+        @Override
+        public double score(List<Unit> types, int[] counts) throws InterruptedException {
+            HeadlessBattle battle = new HeadlessBattle();
+            long genomeSeed = battleSeed(seed, counts);
+            double total = 0;
+            int battles = 0;
+            for (Army opponent : opponents) {
+                for (int b = 0; b < battlesPerOpponent; b++) {
+                    HeadlessBattle.Result r = battle.run(copyOf(opponent), armyOf(types, counts),
+                            SplitMix64.mix(genomeSeed + battles));
+                    total += outcome(r);
+                    battles++;
+                }
+            }
+            return total / battles;
+        }
+
+        static long battleSeed(long seed, int[] counts) {
+            long h = SplitMix64.mix(seed);
+            for (int c : counts) {
+                h = SplitMix64.mix(h ^ c);
+            }
+            return h;
+        }
+
+        static double outcome(HeadlessBattle.Result r) {
+            double win = r.computerWon() ? 1 : r.playerWon() ? 0 : 0.5;
+            long health = r.getComputerHealth() + r.getPlayerHealth();
+            double margin = health == 0 ? 0 : (double) (r.getComputerHealth() - r.getPlayerHealth()) / health;
+            return win + 0.1 * margin;
+        }
+
+        // бой изменяет армии, поэтому эталон каждый раз копируется; лишнее сверх 63 юнитов на поле не встанет
+        private static Army copyOf(Army template) {
+            List<Unit> units = new ArrayList<>();
+            for (Unit u : template.getUnits()) {
+                if (units.size() == MAX_UNITS) break;
+                units.add(new Unit(u.getName(), u.getUnitType(), u.getHealth(), u.getBaseAttack(), u.getCost(),
+                        u.getAttackType(), u.getAttackBonuses(), u.getDefenceBonuses(), 0, 0));
+            }
+            Army army = new Army(units);
+            army.setPoints(template.getPoints());
+            return army;
+        }
+    }
+
+    // ---------- Config ----------
+
+    /** Параметры поиска; хотя бы один из бюджетов (поколения или время) должен быть задан. */
+    public static final class Config {
+        long seed = 1;
+        int generations = 20;
+        long timeBudgetMillis;
+        int populationSize = 24;
+        int elite = 2;
+        int tournamentSize = 3;
+        double crossoverRate = 0.8;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int battlesPerOpponent = 2;
+        int randomOpponents = 2;
+        List<Army> opponents;
+
+        public Config seed(long seed) {
+            this.seed = seed;
+            return this;
+        }
+
+        /** Число оцениваемых поколений, 0 — без ограничения (тогда нужен бюджет по времени). */
+        public Config generations(int generations) {
+            this.generations = Math.max(0, generations);
+            return this;
+        }
+
+        /** Время поиска; проверяется между поколениями. 0 — без ограничения. */
+        public Config timeBudgetMillis(long millis) {
+            this.timeBudgetMillis = Math.max(0, millis);
+            return this;
+        }
+
+        public Config populationSize(int size) {
+            this.populationSize = Math.max(2, size);
+            return this;
+        }
+
+        public Config elite(int elite) {
+            this.elite = Math.max(0, elite);
+            return this;
+        }
+
+        public Config tournamentSize(int size) {
+            this.tournamentSize = Math.max(1, size);
+            return this;
+        }
+
+        public Config crossoverRate(double rate) {
+            this.crossoverRate = Math.max(0, Math.min(1, rate));
+            return this;
+        }
+
+        public Config threads(int threads) {
+            this.threads = Math.max(1, threads);
+            return this;
+        }
+
+        public Config battlesPerOpponent(int battles) {
+            this.battlesPerOpponent = Math.max(1, battles);
+            return this;
+        }
+
+        /** Сколько случайных армий добавить к эталону по умолчанию (пресету {@link GeneratePresetImpl}). */
+        public Config randomOpponents(int count) {
+            this.randomOpponents = Math.max(0, count);
+            return this;
+        }
+
+        /** Свой набор эталонных армий вместо набора по умолчанию. */
+        public Config opponents(List<Army> opponents) {
+            if (opponents == null || opponents.isEmpty()) {
+                throw new IllegalArgumentException("At least one reference opponent is required");
+            }
+            this.opponents = new ArrayList<>(opponents);
+            return this;
+        }
+    }
+}
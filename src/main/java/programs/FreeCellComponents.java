@@ -0,0 +1,123 @@
+package programs;
+
+import com.battle.heroes.army.Unit;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Разметка связных компонент свободных клеток поля (8-связность) для одной расстановки живых юнитов.
+ * Объект неизменяемый: при смене занятых клеток строится новая разметка.
+ * <p>
+ * Атакующий и цель сами занимают клетки, поэтому путь между ними существует, если они соседи
+ * или какая-то свободная соседняя клетка атакующего лежит в одной компоненте со свободной соседней клеткой цели.
+ */
+final class FreeCellComponents {
+
+    private final long[] occupied; // битовая маска занятых клеток, по ней сравниваются расстановки
+    private final int[] label;     // -1 для занятых клеток
+
+    private FreeCellComponents(long[] occupied, int[] label) {
+        this.occupied = occupied;
+        this.label = label;
+    }
+
+    /** Битовая маска клеток, занятых живыми юнитами. */
+    static long[] occupancy(List<Unit> units) {
+        long[] bits = new long[(Board.CELLS + 63) / 64];
+        if (units == null) return bits;
+
+        for (Unit u : units) {
+            if (u == null || !u.isAlive()) continue;
+            int x = u.getxCoordinate();
+            int y = u.getyCoordinate();
+            if (!Board.inside(x, y)) continue;
+            int c = x * Board.HEIGHT + y;
+            bits[c >>> 6] |= 1L << c;
+        }
+        return bits;
+    }
+
+    /** Разметка компонент обходом в ширину: O(V). */
+    static FreeCellComponents label(long[] occupied) {
+        int[] label = new int[Board.CELLS];
+        Arrays.fill(label, -2);
+        int[] queue = new int[Board.CELLS];
+        int next = 0;
+
+        for (int c = 0; c < Board.CELLS; c++) {
+            if (isSet(occupied, c)) {
+                label[c] = -1;
+            }
+        }
+
+        for (int seed = 0; seed < Board.CELLS; seed++) {
+            if (label[seed] != -2) continue;
+
+            int id = next++;
+            int head = 0;
+            int tail = 0;
+            label[seed] = id;
+            queue[tail++] = seed;
+
+            while (head < tail) {
+                int cur = queue[head++];
+                int cx = cur / Board.HEIGHT;
+                int cy = cur % Board.HEIGHT;
+                for (int d = 0; d < 8; d++) {
+                    int nx = cx + Board.DX[d];
+                    int ny = cy + Board.DY[d];
+                    if (!Board.inside(nx, ny)) continue;
+                    int n = nx * Board.HEIGHT + ny;
+                    if (label[n] != -2) continue;
+                    label[n] = id;
+                    queue[tail++] = n;
+                }
+            }
+        }
+        return new FreeCellComponents(occupied, label);
+    }
+
+    boolean sameOccupancy(long[] other) {
+        return Arrays.equals(occupied, other);
+    }
+
+    /** Может ли юнит из (sx, sy) дойти до клетки (tx, ty). Не больше 8 * 8 сравнений. */
+    boolean connects(int sx, int sy, int tx, int ty) {
+        if (!Board.inside(sx, sy) || !Board.inside(tx, ty)) return false;
+        if (Math.max(Math.abs(sx - tx), Math.abs(sy - ty)) <= 1) return true;
+
+        int[] startLabels = new int[9];
+        int count = collectLabels(sx, sy, startLabels);
+        if (count == 0) return false;
+
+        int[] targetLabels = new int[9];
+        int targetCount = collectLabels(tx, ty, targetLabels);
+        for (int i = 0; i < targetCount; i++) {
+            for (int j = 0; j < count; j++) {
+                if (targetLabels[i] == startLabels[j]) return true;
+            }
+        }
+        return false;
+    }
+
+    // компоненты самой клетки (если она свободна) и её свободных соседей
+    private int collectLabels(int x, int y, int[] out) {
+        int count = 0;
+        int own = label[x * Board.HEIGHT + y];
+        if (own >= 0) out[count++] = own;
+
+        for (int d = 0; d < 8; d++) {
+            int nx = x + Board.DX[d];
+            int ny = y + Board.DY[d];
+            if (!Board.inside(nx, ny)) continue;
+            int l = label[nx * Board.HEIGHT + ny];
+            if (l >= 0) out[count++] = l;
+        }
+        return count;
+    }
+
+    private static boolean isSet(long[] bits, int c) {
+        return (bits[c >>> 6] & (1L << c)) != 0;
+    }
+}
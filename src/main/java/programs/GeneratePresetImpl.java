@@ -14,6 +14,8 @@ import java.util.*;
  * 1) attack/cost
  * 2) health/cost
  * 3) cheaper units first (to use remaining points)
+ * Large catalogues are preprocessed: types that can never be picked over their dominators
+ * (equal or higher cost, no better attack or health) are dropped.
  */
 public final class GeneratePresetImpl implements GeneratePreset {
 
@@ -38,23 +40,33 @@ public final class GeneratePresetImpl implements GeneratePreset {
             return armyOf(Collections.emptyList(), 0);
         }
 
+        BattleEvents.GeneratePresetEvent event = new BattleEvents.GeneratePresetEvent();
+        event.begin();
+
         List<Unit> types = new ArrayList<>(unitList);
         types.sort(ranking.comparator());
+        types = DominatedTypeFilter.prune(types, maxPoints, MAX_UNITS_PER_TYPE);
 
         Budget budget = new Budget(maxPoints);
         TypeCounter counter = new TypeCounter(MAX_UNITS_PER_TYPE);
 
         List<Unit> chosen = new ArrayList<>();
 
-        // First pass: take as many as possible from best-ranked types
+        // Take as many as possible from best-ranked types. No fill pass is needed afterwards:
+        // each type was bought up to its cap or until it became unaffordable, and the budget only shrinks
         for (Unit base : types) {
             addAsManyAsPossible(base, types, budget, counter, chosen);
             if (budget.isExhausted()) break;
         }
 
-        // Second pass: try to spend remaining points (cheap fill within ranking order)
-        fillRemaining(types, budget, counter, chosen);
-
+        if (event.shouldCommit()) {
+            event.catalogueSize = unitList.size();
+            event.keptTypes = types.size();
+            event.maxPoints = maxPoints;
+            event.pointsSpent = budget.spent();
+            event.units = chosen.size();
+            event.commit();
+        }
         return armyOf(chosen, budget.spent());
     }
 
@@ -81,33 +93,6 @@ public final class GeneratePresetImpl implements GeneratePreset {
         counter.add(base.getUnitType(), canBuy);
     }
 
-    private void fillRemaining(List<Unit> rankedTypes,
-                               Budget budget,
-                               TypeCounter counter,
-                               List<Unit> out) {
-        if (budget.isExhausted()) return;
-
-        boolean added;
-        do {
-            added = false;
-            for (Unit base : rankedTypes) {
-                int cost = base.getCost();
-                if (cost <= 0) continue;
-                if (!budget.canAfford(cost)) continue;
-                if (!counter.canAdd(base.getUnitType())) continue;
-
-                int idx = counter.currentCount(base.getUnitType()) + 1;
-                out.add(unitFactory.createFrom(base, idx));
-
-                counter.add(base.getUnitType(), 1);
-                budget.spend(cost);
-
-                added = true;
-                if (budget.isExhausted()) break;
-            }
-        } while (added && !budget.isExhausted());
-    }
-
     private Army armyOf(List<Unit> units, int points) {
         Army army = new Army(units);
         army.setPoints(points);
@@ -239,4 +224,46 @@ public final class GeneratePresetImpl implements GeneratePreset {
             counts.put(typeKey, Math.min(perTypeLimit, currentCount(typeKey) + delta));
         }
     }
+
+    /**
+     * Drops a type when the types dominating it (cost <= its cost, attack and health >= its own)
+     * can absorb the whole budget on their own, 11 units each. Dominators always rank ahead of
+     * the dominated type, so the greedy passes would spend the budget on them first anyway.
+     * Only the first occurrence of a unit type counts towards capacity.
+     */
+    static final class DominatedTypeFilter {
+
+        private DominatedTypeFilter() {
+        }
+
+        static List<Unit> prune(List<Unit> rankedTypes, int maxPoints, int perTypeLimit) {
+            int n = rankedTypes.size();
+            boolean[] firstOfType = new boolean[n];
+            Set<String> seen = new HashSet<>();
+            for (int i = 0; i < n; i++) {
+                firstOfType[i] = seen.add(rankedTypes.get(i).getUnitType());
+            }
+
+            List<Unit> kept = new ArrayList<>(n);
+            for (int j = 0; j < n; j++) {
+                Unit b = rankedTypes.get(j);
+                long dominatorPoints = 0;
+
+                for (int i = 0; i < j && dominatorPoints < maxPoints; i++) {
+                    Unit a = rankedTypes.get(i);
+                    if (!firstOfType[i] || a.getCost() <= 0) continue;
+                    if (a.getUnitType().equals(b.getUnitType())) continue;
+                    if (a.getCost() > b.getCost()) continue;
+                    if (a.getBaseAttack() < b.getBaseAttack() || a.getHealth() < b.getHealth()) continue;
+
+                    dominatorPoints += (long) perTypeLimit * a.getCost();
+                }
+
+                if (dominatorPoints < maxPoints) {
+                    kept.add(b);
+                }
+            }
+            return kept;
+        }
+    }
 }
@@ -0,0 +1,198 @@
+package programs;
+
+import com.battle.heroes.army.Army;
+import com.battle.heroes.army.Unit;
+import com.battle.heroes.army.programs.PrintBattleLog;
+import com.battle.heroes.army.programs.Program;
+import com.battle.heroes.army.programs.SuitableForAttackUnitsFinder;
+import com.battle.heroes.army.programs.UnitTargetPathFinder;
+import com.battle.heroes.army.programs.computer.ComputerArcherProgram;
+import com.battle.heroes.army.programs.computer.ComputerKnightProgram;
+import com.battle.heroes.army.programs.computer.ComputerPikemanProgram;
+import com.battle.heroes.army.programs.computer.ComputerSwordsmanProgram;
+import com.battle.heroes.army.programs.user.UserArcherProgram;
+import com.battle.heroes.army.programs.user.UserKnightProgram;
+import com.battle.heroes.army.programs.user.UserPikemanProgram;
+import com.battle.heroes.army.programs.user.UserSwordsmanProgram;
+import com.battle.heroes.util.GameSpeedUtil;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Random;
+
+/**
+ * Бой без интерфейса и без задержек: расставляет армии на поле, назначает юнитам стандартные
+ * программы из библиотеки задания и прогоняет {@link SimulateBattleImpl}.
+ * <p>
+ * Армия компьютера стоит в колонках x = 0..2 (фронт — x = 2), армия игрока — в x = 24..26 (фронт — x = 24),
+ * по 21 клетке в колонке, то есть не больше 63 юнитов на сторону.
+ * Программа выбирается по названию типа: Archer, Knight, Pikeman, остальные — Swordsman.
+ * <p>
+ * Стандартные программы выбирают цель несидированным {@code Collections.shuffle}, поэтому исход боя
+ * случаен. {@link #run(Army, Army, long)} назначает вместо них {@link SeededPrograms} с тем же поведением
+ * и генератором от заданного seed — такой бой повторяется в точности.
+ */
+public final class HeadlessBattle {
+
+    static final int COLUMNS_PER_SIDE = 3;
+    public static final int MAX_UNITS_PER_SIDE = COLUMNS_PER_SIDE * Board.HEIGHT;
+
+    private static final GameSpeedUtil NO_DELAY = new GameSpeedUtil(0);
+
+    // столько раундов подряд без потери здоровья -> считаем бой ничьей
+    private static final int MAX_IDLE_ROUNDS = 10;
+
+    // жёсткий предел на случай, если урон есть, но бой не сходится (например, огромное здоровье)
+    static final int MAX_ROUNDS = 1_000;
+
+    private final SuitableForAttackUnitsFinder suitableFinder;
+    private final UnitTargetPathFinder pathFinder;
+
+    public HeadlessBattle() {
+        this(new SuitableForAttackUnitsFinderImpl(), new UnitTargetPathFinderImpl());
+    }
+
+    public HeadlessBattle(SuitableForAttackUnitsFinder suitableFinder, UnitTargetPathFinder pathFinder) {
+        this.suitableFinder = Objects.requireNonNull(suitableFinder);
+        this.pathFinder = Objects.requireNonNull(pathFinder);
+    }
+
+    /**
+     * Расставляет обе армии, назначает программы и проводит бой. Армии изменяются.
+     */
+    public Result run(Army playerArmy, Army computerArmy) throws InterruptedException {
+        return play(playerArmy, computerArmy, null);
+    }
+
+    /**
+     * То же, что {@link #run(Army, Army)}, но цели выбираются генератором от {@code seed}: один и тот же seed
+     * на одинаковых армиях даёт один и тот же бой.
+     */
+    public Result run(Army playerArmy, Army computerArmy, long seed) throws InterruptedException {
+        return play(playerArmy, computerArmy, new Random(seed));
+    }
+
+    private Result play(Army playerArmy, Army computerArmy, Random random) throws InterruptedException {
+        deploy(playerArmy, computerArmy, true, random);
+        deploy(computerArmy, playerArmy, false, random);
+
+        AttackCounter counter = new AttackCounter();
+        new SimulateBattleImpl(counter, null, MAX_IDLE_ROUNDS, MAX_ROUNDS).simulate(playerArmy, computerArmy);
+
+        return new Result(ArmyStats.countAlive(playerArmy), ArmyStats.countAlive(computerArmy),
+                ArmyStats.healthLeft(playerArmy), ArmyStats.healthLeft(computerArmy), counter.attacks);
+    }
+
+    /** Ставит юнитов армии в её колонки и назначает программы. */
+    public void deploy(Army army, Army enemyArmy, boolean player) {
+        deploy(army, enemyArmy, player, null);
+    }
+
+    private void deploy(Army army, Army enemyArmy, boolean player, Random random) {
+        List<Unit> units = army.getUnits();
+        if (units == null) return;
+        if (units.size() > MAX_UNITS_PER_SIDE) {
+            throw new IllegalArgumentException("Army has " + units.size()
+                    + " units, at most " + MAX_UNITS_PER_SIDE + " fit on one side");
+        }
+
+        for (int i = 0; i < units.size(); i++) {
+            Unit u = units.get(i);
+            int column = i / Board.HEIGHT;
+            u.setxCoordinate(player ? Board.WIDTH - COLUMNS_PER_SIDE + column : COLUMNS_PER_SIDE - 1 - column);
+            u.setyCoordinate(i % Board.HEIGHT);
+            u.setProgram(random == null
+                    ? programFor(u, army, enemyArmy, player)
+                    : seededProgramFor(u, army, enemyArmy, player, random));
+        }
+    }
+
+    private Program programFor(Unit u, Army ally, Army enemy, boolean player) {
+        String type = u.getUnitType() == null ? "" : u.getUnitType().toLowerCase(Locale.ROOT);
+
+        if (type.contains("archer")) {
+            return player
+                    ? new UserArcherProgram(u, ally, enemy, NO_DELAY)
+                    : new ComputerArcherProgram(u, ally, enemy, NO_DELAY);
+        }
+        if (type.contains("knight")) {
+            return player
+                    ? new UserKnightProgram(u, ally, enemy, NO_DELAY, suitableFinder, pathFinder)
+                    : new ComputerKnightProgram(u, ally, enemy, NO_DELAY, suitableFinder, pathFinder);
+        }
+        if (type.contains("pikeman")) {
+            return player
+                    ? new UserPikemanProgram(u, ally, enemy, NO_DELAY, suitableFinder, pathFinder)
+                    : new ComputerPikemanProgram(u, ally, enemy, NO_DELAY, suitableFinder, pathFinder);
+        }
+        return player
+                ? new UserSwordsmanProgram(u, ally, enemy, NO_DELAY, suitableFinder, pathFinder)
+                : new ComputerSwordsmanProgram(u, ally, enemy, NO_DELAY, suitableFinder, pathFinder);
+    }
+
+    private Program seededProgramFor(Unit u, Army ally, Army enemy, boolean player, Random random) {
+        String type = u.getUnitType() == null ? "" : u.getUnitType().toLowerCase(Locale.ROOT);
+
+        if (type.contains("archer")) {
+            return new SeededPrograms.Archer(u, ally, enemy, NO_DELAY, random);
+        }
+        // как в библиотеке: без пути рыцарь компьютера возвращает null, остальные — себя
+        boolean nullWhenNoPath = !player && type.contains("knight");
+        return new SeededPrograms.Melee(u, ally, enemy, NO_DELAY, suitableFinder, pathFinder,
+                player, nullWhenNoPath, random);
+    }
+
+    private static final class AttackCounter implements PrintBattleLog {
+        int attacks;
+
+        @Override
+        public void printBattleLog(Unit attacker, Unit target) {
+            attacks++;
+        }
+    }
+
+    public static final class Result {
+        private final int playerSurvivors;
+        private final int computerSurvivors;
+        private final long playerHealth;
+        private final long computerHealth;
+        private final int attacks;
+
+        Result(int playerSurvivors, int computerSurvivors, long playerHealth, long computerHealth, int attacks) {
+            this.playerSurvivors = playerSurvivors;
+            this.computerSurvivors = computerSurvivors;
+            this.playerHealth = playerHealth;
+            this.computerHealth = computerHealth;
+            this.attacks = attacks;
+        }
+
+        public boolean playerWon() {
+            return playerSurvivors > 0 && computerSurvivors == 0;
+        }
+
+        public boolean computerWon() {
+            return computerSurvivors > 0 && playerSurvivors == 0;
+        }
+
+        public int getPlayerSurvivors() {
+            return playerSurvivors;
+        }
+
+        public int getComputerSurvivors() {
+            return computerSurvivors;
+        }
+
+        public long getPlayerHealth() {
+            return playerHealth;
+        }
+
+        public long getComputerHealth() {
+            return computerHealth;
+        }
+
+        public int getAttacks() {
+            return attacks;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package programs;
+
+import java.util.Arrays;
+
+/**
+ * Двоичная куча примитивных long без упаковки. Приоритет и клетка кодируются в одно значение:
+ * {@code (priority << 32) | cell}, поэтому порядок по значению совпадает с порядком по приоритету.
+ */
+final class LongMinHeap {
+
+    private long[] heap;
+    private int size;
+
+    LongMinHeap(int capacity) {
+        this.heap = new long[Math.max(4, capacity)];
+    }
+
+    static long encode(int priority, int cell) {
+        return ((long) priority << 32) | (cell & 0xffffffffL);
+    }
+
+    static int cell(long entry) {
+        return (int) entry;
+    }
+
+    static int priority(long entry) {
+        return (int) (entry >>> 32);
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    void add(long value) {
+        if (size == heap.length) {
+            heap = Arrays.copyOf(heap, size * 2);
+        }
+        int i = size++;
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (heap[parent] <= value) break;
+            heap[i] = heap[parent];
+            i = parent;
+        }
+        heap[i] = value;
+    }
+
+    long poll() {
+        long top = heap[0];
+        long last = heap[--size];
+        int i = 0;
+        int half = size >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            if (child + 1 < size && heap[child + 1] < heap[child]) child++;
+            if (last <= heap[child]) break;
+            heap[i] = heap[child];
+            i = child;
+        }
+        if (size > 0) heap[i] = last;
+        return top;
+    }
+}
@@ -0,0 +1,111 @@
+package programs;
+
+import com.battle.heroes.army.Army;
+import com.battle.heroes.army.Unit;
+import com.battle.heroes.army.programs.Edge;
+import com.battle.heroes.army.programs.Program;
+import com.battle.heroes.army.programs.SuitableForAttackUnitsFinder;
+import com.battle.heroes.army.programs.UnitTargetPathFinder;
+import com.battle.heroes.util.GameSpeedUtil;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Копии стандартных программ юнитов из библиотеки задания, но с заданным генератором случайных чисел
+ * вместо несидированного {@code Collections.shuffle(list)}. Поведение совпадает с библиотечным:
+ * <ul>
+ *   <li>лучник бьёт случайного живого врага;</li>
+ *   <li>ближний бой выбирает случайную цель из {@link SuitableForAttackUnitsFinder#getSuitableUnits}
+ *       по трём колонкам врага, идёт к ней по пути {@link UnitTargetPathFinder}, бьёт и возвращается на место;
+ *       если пути нет — возвращает самого атакующего (рыцарь компьютера — {@code null}).</li>
+ * </ul>
+ * Один генератор на бой: бой однопоточный, поэтому порядок обращений к нему, а значит и весь бой, повторяется.
+ */
+final class SeededPrograms {
+
+    private SeededPrograms() {
+    }
+
+    static final class Archer extends Program {
+        private final Random random;
+
+        Archer(Unit unit, Army ally, Army enemy, GameSpeedUtil speed, Random random) {
+            super(unit, ally, enemy, speed);
+            this.random = random;
+        }
+
+        @Override
+        public Unit attack() throws InterruptedException {
+            List<Unit> alive = new ArrayList<>();
+            for (Unit u : enemyArmy.getUnits()) {
+                if (u.isAlive()) alive.add(u);
+            }
+            Collections.shuffle(alive, random);
+            if (alive.isEmpty()) return null;
+
+            Unit target = alive.get(0);
+            target.setHealth(target.getHealth() - unit.getBaseAttack());
+            Thread.sleep(simSpeed.getGameSpeed());
+            if (target.getHealth() <= 0) target.setAlive(false);
+            return target;
+        }
+    }
+
+    static final class Melee extends Program {
+        private final SuitableForAttackUnitsFinder suitableFinder;
+        private final UnitTargetPathFinder pathFinder;
+        private final boolean player;
+        private final boolean nullWhenNoPath;
+        private final Random random;
+
+        Melee(Unit unit, Army ally, Army enemy, GameSpeedUtil speed,
+              SuitableForAttackUnitsFinder suitableFinder, UnitTargetPathFinder pathFinder,
+              boolean player, boolean nullWhenNoPath, Random random) {
+            super(unit, ally, enemy, speed);
+            this.suitableFinder = suitableFinder;
+            this.pathFinder = pathFinder;
+            this.player = player;
+            this.nullWhenNoPath = nullWhenNoPath;
+            this.random = random;
+        }
+
+        @Override
+        public Unit attack() throws InterruptedException {
+            // игрок бьёт по колонкам компьютера x = 0..2, компьютер — по колонкам игрока x = 24..26
+            int firstRow = player ? 0 : Board.WIDTH - HeadlessBattle.COLUMNS_PER_SIDE;
+            List<List<Unit>> rows = new ArrayList<>();
+            for (int x = firstRow; x < firstRow + HeadlessBattle.COLUMNS_PER_SIDE; x++) {
+                rows.add(getUnitsByRow(x));
+            }
+
+            List<Unit> suitable = suitableFinder.getSuitableUnits(rows, player);
+            if (suitable.isEmpty()) return null;
+            suitable = new ArrayList<>(suitable);
+            Collections.shuffle(suitable, random);
+            Unit target = suitable.get(0);
+
+            List<Unit> everyone = new ArrayList<>(enemyArmy.getUnits());
+            everyone.addAll(allyArmy.getUnits());
+            List<Edge> path = pathFinder.getTargetPath(unit, target, everyone);
+            if (path.isEmpty()) return nullWhenNoPath ? null : unit;
+
+            Edge start = new Edge(unit.getxCoordinate(), unit.getyCoordinate());
+            for (Edge step : path) {
+                unit.setxCoordinate(step.getX());
+                unit.setyCoordinate(step.getY());
+                Thread.sleep(simSpeed.getGameSpeed());
+            }
+
+            target.setHealth(target.getHealth() - unit.getBaseAttack());
+            if (target.getHealth() <= 0) target.setAlive(false);
+            Thread.sleep(simSpeed.getGameSpeed());
+
+            unit.setxCoordinate(start.getX());
+            unit.setyCoordinate(start.getY());
+            return target;
+        }
+    }
+}
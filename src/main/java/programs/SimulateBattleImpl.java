@@ -14,47 +14,144 @@ import java.util.*;
  * - если у армии закончились юниты на ход, она "ждёт"
  * - юнит, погибший до своего хода, удаляется из очереди немедленно
  * - после каждой атаки печатается лог
+ * <p>
+ * В детерминированном режиме (передана {@link BattleTranspositionTable}) состояние поля на границе
+ * каждого раунда ищется в таблице; при совпадении юнитам сразу присваивается сохранённый итог боя
+ * (оставшиеся атаки не логируются). В таблицу попадают только бои, закончившиеся гибелью армии:
+ * итог боя, оборванного лимитом раундов, зависит от того, на каком раунде встретилось состояние.
+ * <p>
+ * Необязательный лимит {@code maxIdleRounds} завершает бой, если столько раундов подряд
+ * ни одна из армий не потеряла здоровья (никто ни до кого не может дойти или атака нулевая;
+ * программа, не нашедшая пути, возвращает самого атакующего, поэтому возвращённая цель прогрессом не считается).
+ * Необязательный лимит {@code maxRounds} ограничивает общее число раундов.
  */
 public final class SimulateBattleImpl implements SimulateBattle {
 
     private final PrintBattleLog printBattleLog;
+    private final BattleTranspositionTable transpositions; // null -> обычный режим
+    private final int maxIdleRounds;                       // <= 0 -> без ограничения
+    private final int maxRounds;                           // <= 0 -> без ограничения
 
     public SimulateBattleImpl(PrintBattleLog printBattleLog) {
+        this(printBattleLog, null);
+    }
+
+    public SimulateBattleImpl(PrintBattleLog printBattleLog, BattleTranspositionTable transpositions) {
+        this(printBattleLog, transpositions, 0);
+    }
+
+    public SimulateBattleImpl(PrintBattleLog printBattleLog,
+                              BattleTranspositionTable transpositions,
+                              int maxIdleRounds) {
+        this(printBattleLog, transpositions, maxIdleRounds, 0);
+    }
+
+    public SimulateBattleImpl(PrintBattleLog printBattleLog,
+                              BattleTranspositionTable transpositions,
+                              int maxIdleRounds,
+                              int maxRounds) {
         this.printBattleLog = Objects.requireNonNull(printBattleLog);
+        this.transpositions = transpositions;
+        this.maxIdleRounds = maxIdleRounds;
+        this.maxRounds = maxRounds;
     }
 
     @Override
     public void simulate(Army playerArmy, Army computerArmy) throws InterruptedException {
         if (playerArmy == null || computerArmy == null) return;
 
-        while (hasAlive(playerArmy) && hasAlive(computerArmy)) {
-            TurnQueues q = buildQueues(playerArmy, computerArmy);
+        if (transpositions == null) {
+            playRounds(playerArmy, computerArmy, null);
+            return;
+        }
 
-            boolean playerTurn = shouldPlayerStart(q.player, q.computer);
+        // после доигранного до конца боя все пройденные состояния ведут к итогу;
+        // бой, оборванный лимитом, не сохраняется — ключ не учитывает номер раунда и счётчик простоя
+        List<BattleTranspositionTable.RoundState> visited = new ArrayList<>();
+        if (playRounds(playerArmy, computerArmy, visited)) {
+            transpositions.storeOutcome(visited);
+        }
+    }
 
-            // раунд продолжается, пока кто-то ещё может ходить в этом раунде
-            while (!q.player.isEmpty() || !q.computer.isEmpty()) {
+    /** Возвращает true, если бой закончился гибелью армии (а не лимитом раундов или простоя). */
+    private boolean playRounds(Army playerArmy,
+                            Army computerArmy,
+                            List<BattleTranspositionTable.RoundState> visited) throws InterruptedException {
 
-                if (playerTurn) {
-                    takeTurn(q.player, q.playerIndex, q.computer, q.computerIndex);
-                } else {
-                    takeTurn(q.computer, q.computerIndex, q.player, q.playerIndex);
+        int idleRounds = 0;
+        int round = 0;
+        while (hasAlive(playerArmy) && hasAlive(computerArmy)) {
+            if (maxRounds > 0 && round >= maxRounds) {
+                return false; // ничья по лимиту раундов
+            }
+            if (visited != null) {
+                BattleTranspositionTable.RoundState state = transpositions.snapshot(playerArmy, computerArmy);
+                if (transpositions.tryApply(state)) {
+                    return true; // в таблице только доигранные бои
                 }
-                playerTurn = !playerTurn;
+                visited.add(state);
+            }
 
-                // бой заканчивается, когда у одной армии не осталось живых
-                if (!hasAlive(playerArmy) || !hasAlive(computerArmy)) {
-                    return;
+            round++;
+            BattleEvents.RoundEvent roundEvent = new BattleEvents.RoundEvent();
+            roundEvent.begin();
+
+            TurnQueues q = buildQueues(playerArmy, computerArmy);
+            int playerAtStart = q.player.size();
+            int computerAtStart = q.computer.size();
+
+            boolean playerTurn = shouldPlayerStart(q.player, q.computer);
+            long healthAtStart = maxIdleRounds > 0 ? ArmyStats.healthLeft(playerArmy) + ArmyStats.healthLeft(computerArmy) : 0;
+            int turns = 0;
+
+            try {
+                // раунд продолжается, пока кто-то ещё может ходить в этом раунде
+                while (!q.player.isEmpty() || !q.computer.isEmpty()) {
+
+                    if (playerTurn) {
+                        takeTurn(q.player, q.playerIndex, q.computer, q.computerIndex, round, true);
+                    } else {
+                        takeTurn(q.computer, q.computerIndex, q.player, q.playerIndex, round, false);
+                    }
+                    playerTurn = !playerTurn;
+                    turns++;
+
+                    // бой заканчивается, когда у одной армии не осталось живых
+                    if (!hasAlive(playerArmy) || !hasAlive(computerArmy)) {
+                        return true;
+                    }
+                }
+            } finally {
+                // при выключенном событии shouldCommit() == false, подсчёт выживших не выполняется
+                if (roundEvent.shouldCommit()) {
+                    roundEvent.round = round;
+                    roundEvent.playerAliveBefore = playerAtStart;
+                    roundEvent.computerAliveBefore = computerAtStart;
+                    roundEvent.playerAliveAfter = ArmyStats.countAlive(playerArmy);
+                    roundEvent.computerAliveAfter = ArmyStats.countAlive(computerArmy);
+                    roundEvent.turns = turns;
+                    roundEvent.commit();
                 }
             }
             // раунд завершён -> следующий раунд, очереди пересоберутся с учётом потерь
+
+            if (maxIdleRounds > 0) {
+                boolean progress = ArmyStats.healthLeft(playerArmy) + ArmyStats.healthLeft(computerArmy) < healthAtStart;
+                idleRounds = progress ? 0 : idleRounds + 1;
+                if (idleRounds >= maxIdleRounds) {
+                    return false; // ничья: никто никому не наносит урона
+                }
+            }
         }
+        return true;
     }
 
     private void takeTurn(NavigableSet<UnitRef> attackers,
                           Map<Unit, UnitRef> attackersIndex,
                           NavigableSet<UnitRef> defenders,
-                          Map<Unit, UnitRef> defendersIndex) throws InterruptedException {
+                          Map<Unit, UnitRef> defendersIndex,
+                          int round,
+                          boolean playerSide) throws InterruptedException {
 
         if (attackers.isEmpty()) return; // армия ждёт
 
@@ -66,7 +163,21 @@ public final class SimulateBattleImpl implements SimulateBattle {
             return;
         }
 
+        BattleEvents.TurnEvent turnEvent = new BattleEvents.TurnEvent();
+        turnEvent.begin();
+
         Unit target = attacker.getProgram().attack(); // может бросить InterruptedException
+
+        if (turnEvent.shouldCommit()) {
+            turnEvent.round = round;
+            turnEvent.player = playerSide;
+            turnEvent.attacker = attacker.getName();
+            turnEvent.attackerType = attacker.getUnitType();
+            turnEvent.target = target == null ? null : target.getName();
+            turnEvent.targetKilled = target != null && !target.isAlive();
+            turnEvent.commit();
+        }
+
         printBattleLog.printBattleLog(attacker, target);
 
         if (target == null) return;
@@ -0,0 +1,17 @@
+package programs;
+
+/**
+ * Финализатор SplitMix64: перемешивает биты 64-битного значения. Основа ключей таблицы транспозиций
+ * и seed боёв эволюционного поиска.
+ */
+final class SplitMix64 {
+
+    private SplitMix64() {
+    }
+
+    static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
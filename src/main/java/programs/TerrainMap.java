@@ -0,0 +1,179 @@
+package programs;
+
+import java.util.Arrays;
+
+/**
+ * Стоимость входа в каждую клетку поля 27x21: болото дороже, дорога дешевле,
+ * {@link #IMPASSABLE} (0) — скала, через неё пройти нельзя.
+ * <p>
+ * Эвристика для взвешенного A* — максимум из двух допустимых оценок:
+ * <ul>
+ *   <li>Chebyshev-расстояние, умноженное на минимальную стоимость проходимой клетки;</li>
+ *   <li>ALT (если заданы ориентиры): по неравенству треугольника
+ *       {@code d(n,t) >= d(L,t) - d(L,n)} и {@code d(n,t) >= d(n,L) - d(t,L)}.</li>
+ * </ul>
+ * Таблицы расстояний до ориентиров считаются один раз при создании карты (Dijkstra по рельефу без юнитов).
+ * Юниты только добавляют препятствия и могут лишь увеличить расстояния, поэтому оценка остаётся допустимой.
+ */
+public final class TerrainMap {
+
+    public static final int IMPASSABLE = 0;
+
+    /**
+     * Наибольшая стоимость клетки. Простой путь проходит не больше {@code Board.CELLS} клеток, а f = g + h
+     * не больше двух стоимостей пути, поэтому при этой границе ни сумма в поиске, ни приоритет
+     * {@link LongMinHeap} не переполняют int.
+     */
+    public static final int MAX_COST = Integer.MAX_VALUE / (2 * Board.CELLS);
+
+    private static final int INF = Integer.MAX_VALUE;
+
+    private final int[] cost;
+    private final int minCost;
+    private final int[][] fromLandmark; // d(L, cell)
+    private final int[][] toLandmark;   // d(cell, L)
+
+    public TerrainMap(int[][] costs) {
+        this(costs, 0);
+    }
+
+    /**
+     * @param costs     стоимости по [x][y], размер 27x21, значения от 0 до {@link #MAX_COST}
+     * @param landmarks число ориентиров для ALT-эвристики, 0 — без ALT
+     */
+    public TerrainMap(int[][] costs, int landmarks) {
+        if (costs == null || costs.length != Board.WIDTH) {
+            throw new IllegalArgumentException("Terrain must have " + Board.WIDTH + " columns");
+        }
+        this.cost = new int[Board.CELLS];
+        int min = INF;
+        for (int x = 0; x < Board.WIDTH; x++) {
+            if (costs[x] == null || costs[x].length != Board.HEIGHT) {
+                throw new IllegalArgumentException("Terrain column " + x + " must have " + Board.HEIGHT + " cells");
+            }
+            for (int y = 0; y < Board.HEIGHT; y++) {
+                int c = costs[x][y];
+                if (c < 0) {
+                    throw new IllegalArgumentException("Negative terrain cost at (" + x + ", " + y + ")");
+                }
+                if (c > MAX_COST) {
+                    throw new IllegalArgumentException("Terrain cost at (" + x + ", " + y + ") exceeds " + MAX_COST);
+                }
+                cost[x * Board.HEIGHT + y] = c;
+                if (c != IMPASSABLE) min = Math.min(min, c);
+            }
+        }
+        this.minCost = min == INF ? 1 : min;
+
+        int[] chosen = pickLandmarks(Math.max(0, landmarks));
+        this.fromLandmark = new int[chosen.length][];
+        this.toLandmark = new int[chosen.length][];
+        for (int i = 0; i < chosen.length; i++) {
+            fromLandmark[i] = dijkstra(chosen[i], false);
+            toLandmark[i] = dijkstra(chosen[i], true);
+        }
+    }
+
+    int cost(int cell) {
+        return cost[cell];
+    }
+
+    boolean passable(int cell) {
+        return cost[cell] != IMPASSABLE;
+    }
+
+    public int landmarkCount() {
+        return fromLandmark.length;
+    }
+
+    /** Помечает скалы в битовой маске занятых клеток. */
+    void markRocks(long[] occupied) {
+        for (int c = 0; c < Board.CELLS; c++) {
+            if (cost[c] == IMPASSABLE) occupied[c >>> 6] |= 1L << c;
+        }
+    }
+
+    /** Нижняя оценка стоимости пути из cell в goal. */
+    int heuristic(int cell, int goal) {
+        int dx = Math.abs(cell / Board.HEIGHT - goal / Board.HEIGHT);
+        int dy = Math.abs(cell % Board.HEIGHT - goal % Board.HEIGHT);
+        int h = Math.max(dx, dy) * minCost;
+
+        for (int i = 0; i < fromLandmark.length; i++) {
+            int[] from = fromLandmark[i];
+            if (from[goal] != INF && from[cell] != INF) {
+                h = Math.max(h, from[goal] - from[cell]);
+            }
+            int[] to = toLandmark[i];
+            if (to[cell] != INF && to[goal] != INF) {
+                h = Math.max(h, to[cell] - to[goal]);
+            }
+        }
+        return h;
+    }
+
+    /**
+     * Dijkstra от ориентира: прямой — d(L, cell), обратный — d(cell, L).
+     * Шаг в клетку стоит cost(клетки), поэтому в обратном проходе к расстоянию прибавляется стоимость текущей.
+     */
+    private int[] dijkstra(int source, boolean reverse) {
+        int[] dist = new int[Board.CELLS];
+        Arrays.fill(dist, INF);
+        dist[source] = 0;
+
+        LongMinHeap open = new LongMinHeap(Board.CELLS);
+        open.add(LongMinHeap.encode(0, source));
+
+        while (!open.isEmpty()) {
+            long e = open.poll();
+            int cur = LongMinHeap.cell(e);
+            int d = LongMinHeap.priority(e);
+            if (d > dist[cur]) continue;
+
+            int cx = cur / Board.HEIGHT;
+            int cy = cur % Board.HEIGHT;
+            for (int k = 0; k < 8; k++) {
+                int nx = cx + Board.DX[k];
+                int ny = cy + Board.DY[k];
+                if (nx < 0 || nx >= Board.WIDTH || ny < 0 || ny >= Board.HEIGHT) continue;
+                int n = nx * Board.HEIGHT + ny;
+                if (!passable(n)) continue;
+
+                int nd = d + (reverse ? cost[cur] : cost[n]);
+                if (nd < dist[n]) {
+                    dist[n] = nd;
+                    open.add(LongMinHeap.encode(nd, n));
+                }
+            }
+        }
+        return dist;
+    }
+
+    // выбор самых удалённых точек: каждый следующий ориентир — клетка, дальше всего от уже выбранных
+    private int[] pickLandmarks(int count) {
+        int first = -1;
+        for (int c = 0; c < Board.CELLS && first < 0; c++) {
+            if (passable(c)) first = c;
+        }
+        if (first < 0 || count == 0) return new int[0];
+
+        int[] nearest = dijkstra(first, false);
+        int[] chosen = new int[count];
+        int n = 0;
+        while (n < count) {
+            int best = -1;
+            for (int c = 0; c < Board.CELLS; c++) {
+                if (!passable(c) || nearest[c] == INF) continue;
+                if (best < 0 || nearest[c] > nearest[best]) best = c;
+            }
+            if (best < 0 || nearest[best] == 0) break;
+
+            chosen[n++] = best;
+            int[] d = dijkstra(best, false);
+            for (int c = 0; c < Board.CELLS; c++) {
+                nearest[c] = Math.min(nearest[c], d[c]);
+            }
+        }
+        return Arrays.copyOf(chosen, n);
+    }
+}
@@ -6,14 +6,50 @@ import com.battle.heroes.army.programs.Edge;
 
 import java.util.*;
 
+/**
+ * Кратчайший путь на поле 27x21 (8 направлений, стоимость шага 1). Две стратегии с одинаковой длиной пути:
+ * A* и двунаправленный A*, который ведёт поиск одновременно от атакующего и от цели с той же Chebyshev-эвристикой
+ * и останавливается, когда ни одна из сторон уже не может улучшить найденную встречу. Обе стратегии работают
+ * на массивах и очереди из трёх стеков ({@link BucketQueue}); массивы переиспользуются в пределах потока.
+ * Стратегия выбирается по Chebyshev-расстоянию между концами: от {@link #DEFAULT_BIDIRECTIONAL_MIN_DISTANCE} —
+ * двунаправленный A*. Порог взят из {@code PerformanceRegressionTest#testPathStrategiesByDistance}: ближе 22
+ * A* быстрее на 7–9%, на запросах сидированных боёв (расстояния 22..26) двунаправленный A* не медленнее A*.
+ * <p>
+ * Перед поиском проверяется достижимость цели по разметке связных компонент свободных клеток
+ * ({@link FreeCellComponents}); разметка кешируется и пересчитывается только при смене занятых клеток,
+ * так что замурованная цель отсекается без обхода всей доступной области.
+ * <p>
+ * Если задан рельеф ({@link TerrainMap}), шаг стоит столько, сколько клетка, в которую входит юнит,
+ * скалы непроходимы, и всегда используется взвешенный A* с эвристикой рельефа (в том числе ALT).
+ */
 public final class UnitTargetPathFinderImpl implements UnitTargetPathFinder {
 
-    private static final int WIDTH = 27;
-    private static final int HEIGHT = 21;
+    // Chebyshev-расстояние, начиная с которого используется двунаправленный A* (см. testPathStrategiesByDistance)
+    static final int DEFAULT_BIDIRECTIONAL_MIN_DISTANCE = 22;
 
-    // 8 направлений (включая диагонали)
-    private static final int[] DX = {-1, -1, -1, 0, 0, 1, 1, 1};
-    private static final int[] DY = {-1, 0, 1, -1, 1, -1, 0, 1};
+    private final int bidirectionalMinDistance;
+    private final TerrainMap terrain; // null -> все клетки стоят 1
+
+    // разметка для последней встреченной расстановки; объект неизменяемый, поэтому достаточно volatile
+    private volatile FreeCellComponents components;
+
+    public UnitTargetPathFinderImpl() {
+        this(DEFAULT_BIDIRECTIONAL_MIN_DISTANCE);
+    }
+
+    public UnitTargetPathFinderImpl(TerrainMap terrain) {
+        this(DEFAULT_BIDIRECTIONAL_MIN_DISTANCE, Objects.requireNonNull(terrain));
+    }
+
+    // Для тестов: 0 -> всегда двунаправленный A*, Integer.MAX_VALUE -> всегда A*
+    UnitTargetPathFinderImpl(int bidirectionalMinDistance) {
+        this(bidirectionalMinDistance, null);
+    }
+
+    private UnitTargetPathFinderImpl(int bidirectionalMinDistance, TerrainMap terrain) {
+        this.bidirectionalMinDistance = bidirectionalMinDistance;
+        this.terrain = terrain;
+    }
 
     @Override
     public List<Edge> getTargetPath(Unit attackUnit,
@@ -24,52 +60,317 @@ public final class UnitTargetPathFinderImpl implements UnitTargetPathFinder {
             return Collections.emptyList();
         }
 
+        BattleEvents.PathSearchEvent event = new BattleEvents.PathSearchEvent();
+        event.begin();
+
+        List<Edge> path = findPath(attackUnit, targetUnit, existingUnitList, event);
+
+        if (event.shouldCommit()) {
+            event.attacker = attackUnit.getName();
+            event.fromX = attackUnit.getxCoordinate();
+            event.fromY = attackUnit.getyCoordinate();
+            event.toX = targetUnit.getxCoordinate();
+            event.toY = targetUnit.getyCoordinate();
+            event.pathLength = path.size();
+            event.success = !path.isEmpty();
+            event.commit();
+        }
+        return path;
+    }
+
+    // event используется и как счётчик раскрытых клеток; при выключенной записи он просто не коммитится
+    List<Edge> findPath(Unit attackUnit,
+                                Unit targetUnit,
+                                List<Unit> existingUnitList,
+                                BattleEvents.PathSearchEvent event) {
+
+        event.strategy = "rejected";
+
         int sx = attackUnit.getxCoordinate();
         int sy = attackUnit.getyCoordinate();
         int tx = targetUnit.getxCoordinate();
         int ty = targetUnit.getyCoordinate();
 
+        if (!Board.inside(sx, sy) || !Board.inside(tx, ty)) {
+            return Collections.emptyList();
+        }
+
+        if (!componentsFor(existingUnitList).connects(sx, sy, tx, ty)) {
+            return Collections.emptyList(); // цель замурована — поиск не запускаем
+        }
+
         boolean[][] blocked = buildBlockedMap(existingUnitList, attackUnit, targetUnit);
+        if (blocked[tx][ty]) {
+            return Collections.emptyList(); // клетку цели занимает другой юнит (или скала)
+        }
 
-        PriorityQueue<Node> open = new PriorityQueue<>();
-        boolean[][] visited = new boolean[WIDTH][HEIGHT];
-        Node[][] parent = new Node[WIDTH][HEIGHT];
+        if (terrain != null) {
+            event.strategy = "weighted";
+            return weightedAStar(sx, sy, tx, ty, blocked, event);
+        }
 
-        Node start = new Node(sx, sy, 0, heuristic(sx, sy, tx, ty));
-        open.add(start);
+        if (heuristic(sx, sy, tx, ty) >= bidirectionalMinDistance) {
+            event.strategy = "bidirectional";
+            return bidirectionalAStar(sx, sy, tx, ty, blocked, event);
+        }
+        event.strategy = "astar";
+        return aStar(sx, sy, tx, ty, blocked, event);
+    }
 
-        while (!open.isEmpty()) {
-            Node cur = open.poll();
+    /**
+     * Оставляет из кандидатов (например, результата {@code SuitableForAttackUnitsFinder.getSuitableUnits})
+     * только тех, до кого атакующий может дойти. Разметка строится один раз на весь список.
+     */
+    public List<Unit> filterReachable(Unit attackUnit, List<Unit> candidates, List<Unit> existingUnitList) {
+        if (attackUnit == null || candidates == null || candidates.isEmpty()) {
+            return Collections.emptyList();
+        }
 
-            if (visited[cur.x][cur.y]) continue;
-            visited[cur.x][cur.y] = true;
+        FreeCellComponents cc = componentsFor(existingUnitList);
 
-            if (cur.x == tx && cur.y == ty) {
-                return buildPath(cur);
+        // сколько живых юнитов стоит в каждой клетке, не считая атакующего
+        int[] occupants = new int[Board.CELLS];
+        Set<Unit> present = Collections.newSetFromMap(new IdentityHashMap<>());
+        if (existingUnitList != null) {
+            for (Unit u : existingUnitList) {
+                if (u == null || u == attackUnit || !u.isAlive()) continue;
+                present.add(u);
+                int x = u.getxCoordinate();
+                int y = u.getyCoordinate();
+                if (Board.inside(x, y)) occupants[x * Board.HEIGHT + y]++;
             }
+        }
+
+        int sx = attackUnit.getxCoordinate();
+        int sy = attackUnit.getyCoordinate();
+        List<Unit> result = new ArrayList<>(candidates.size());
+        for (Unit target : candidates) {
+            if (target == null) continue;
+            int tx = target.getxCoordinate();
+            int ty = target.getyCoordinate();
+            if (!cc.connects(sx, sy, tx, ty)) continue;
+
+            int others = occupants[tx * Board.HEIGHT + ty] - (present.contains(target) ? 1 : 0);
+            if (others > 0) continue;
+
+            result.add(target);
+        }
+        return result;
+    }
+
+    private FreeCellComponents componentsFor(List<Unit> units) {
+        long[] occupied = FreeCellComponents.occupancy(units);
+        if (terrain != null) {
+            terrain.markRocks(occupied);
+        }
+        FreeCellComponents cached = components;
+        if (cached != null && cached.sameOccupancy(occupied)) {
+            return cached;
+        }
+        FreeCellComponents fresh = FreeCellComponents.label(occupied);
+        components = fresh;
+        return fresh;
+    }
+
+    /**
+     * A* с очередью из трёх стеков, как в {@link BucketQueue}, но со счётчиками в локальных переменных:
+     * у одиночного поиска нет состояния между вызовами, и цикл не обращается к полям объекта. g и предки —
+     * в переиспользуемых массивах {@link Frontier}. Эвристика согласована, поэтому у раскрытой клетки g уже
+     * наименьшее; закрытое множество не нужно: клетка с улучшенным g кладётся в очередь ещё раз, а старая
+     * запись при извлечении узнаётся по f больше g + h.
+     */
+    private List<Edge> aStar(int sx, int sy, int tx, int ty, boolean[][] blocked,
+                             BattleEvents.PathSearchEvent event) {
+        int start = sx * Board.HEIGHT + sy;
+        int goal = tx * Board.HEIGHT + ty;
+
+        Frontier search = SEARCH.get()[0];
+        int f = heuristic(sx, sy, tx, ty);
+        search.reset(start, tx, ty, f);
+        int[] g = search.g;
+        int[] parent = search.parent;
+        int base = search.base;
 
-            for (int i = 0; i < 8; i++) {
-                int nx = cur.x + DX[i];
-                int ny = cur.y + DY[i];
+        int[][] open = search.open.stacks;
+        int[] size = {0, 0, 0};
+        open[f % 3][size[f % 3]++] = start;
 
-                if (!inside(nx, ny)) continue;
-                if (blocked[nx][ny]) continue;
-                if (visited[nx][ny]) continue;
+        while (true) {
+            int k = 0;
+            while (k < 3 && size[(f + k) % 3] == 0) k++;
+            if (k == 3) break; // очередь пуста
+            f += k;
+
+            int cur = open[f % 3][--size[f % 3]];
+            int cx = cur / Board.HEIGHT;
+            int cy = cur % Board.HEIGHT;
+            int gc = g[cur] - base;
+            if (gc + heuristic(cx, cy, tx, ty) < f) continue; // устаревшая запись
+            event.nodesExpanded++;
+
+            if (cur == goal) {
+                return pathTo(goal, parent);
+            }
 
-                int g = cur.g + 1;
-                int h = heuristic(nx, ny, tx, ty);
-                Node next = new Node(nx, ny, g, h);
-                next.prev = cur;
+            int ng = g[cur] + 1;
+            for (int d = 0; d < 8; d++) {
+                int nx = cx + Board.DX[d];
+                int ny = cy + Board.DY[d];
+                if (!Board.inside(nx, ny) || blocked[nx][ny]) continue;
 
-                open.add(next);
+                int n = nx * Board.HEIGHT + ny;
+                if (g[n] < base || ng < g[n]) {
+                    g[n] = ng;
+                    parent[n] = cur;
+                    int nb = (gc + 1 + heuristic(nx, ny, tx, ty)) % 3;
+                    if (size[nb] == open[nb].length) {
+                        open[nb] = Arrays.copyOf(open[nb], size[nb] * 2);
+                    }
+                    open[nb][size[nb]++] = n;
+                }
             }
         }
 
         return Collections.emptyList(); // путь не найден
     }
 
+    /**
+     * Двунаправленный A*: прямой поиск с эвристикой до цели, обратный — с эвристикой до старта; на каждом шаге
+     * раскрывается сторона с меньшей очередью. Каждое найденное g проверяется на встречу со вторым поиском,
+     * лучшая сумма — длина кандидата. Наименьшее f открытых клеток любой стороны — нижняя оценка любого пути
+     * через её фронт, поэтому поиск останавливается, как только она не меньше кандидата: путь кратчайший.
+     */
+    private List<Edge> bidirectionalAStar(int sx, int sy, int tx, int ty, boolean[][] blocked,
+                                          BattleEvents.PathSearchEvent event) {
+        int start = sx * Board.HEIGHT + sy;
+        int goal = tx * Board.HEIGHT + ty;
+        if (start == goal) {
+            return Collections.singletonList(new Edge(sx, sy));
+        }
+
+        Frontier[] sides = SEARCH.get();
+        Frontier fwd = sides[0];
+        Frontier bwd = sides[1];
+        fwd.reset(start, tx, ty, heuristic(sx, sy, tx, ty));
+        bwd.reset(goal, sx, sy, heuristic(sx, sy, tx, ty)); // эвристика ведёт к старту
+
+        while (!fwd.open.isEmpty() && !bwd.open.isEmpty()) {
+            if (Math.max(fwd.open.minF(), bwd.open.minF()) >= fwd.best) break;
+            if (fwd.open.size() <= bwd.open.size()) {
+                expand(fwd, bwd, blocked, event);
+            } else {
+                expand(bwd, fwd, blocked, event);
+            }
+        }
+
+        int meet = fwd.meet;
+        if (meet < 0) {
+            return Collections.emptyList(); // фронты не встретились -> пути нет
+        }
+        LinkedList<Edge> path = new LinkedList<>();
+        for (int c = meet; c != -1; c = fwd.parent[c]) {
+            path.addFirst(new Edge(c / Board.HEIGHT, c % Board.HEIGHT));
+        }
+        for (int c = bwd.parent[meet]; c != -1; c = bwd.parent[c]) {
+            path.addLast(new Edge(c / Board.HEIGHT, c % Board.HEIGHT));
+        }
+        return path;
+    }
+
+    // раскрывает одну клетку стороны self; встреча с other записывается в общий кандидат (хранится в fwd и bwd)
+    private void expand(Frontier self, Frontier other, boolean[][] blocked, BattleEvents.PathSearchEvent event) {
+        int f = self.open.minF();
+        int cur = self.open.poll();
+        int cx = cur / Board.HEIGHT;
+        int cy = cur % Board.HEIGHT;
+        int[] g = self.g;
+        int base = self.base;
+        int gc = g[cur] - base;
+        if (gc + heuristic(cx, cy, self.hx, self.hy) < f) return; // устаревшая запись
+        event.nodesExpanded++;
+
+        int[] otherG = other.g;
+        int otherBase = other.base;
+        int ng = g[cur] + 1;
+        for (int d = 0; d < 8; d++) {
+            int nx = cx + Board.DX[d];
+            int ny = cy + Board.DY[d];
+            if (!Board.inside(nx, ny) || blocked[nx][ny]) continue;
+
+            int n = nx * Board.HEIGHT + ny;
+            if (g[n] < base || ng < g[n]) {
+                g[n] = ng;
+                self.parent[n] = cur;
+                self.open.add(gc + 1 + heuristic(nx, ny, self.hx, self.hy), n);
+                if (otherG[n] >= otherBase && gc + 1 + otherG[n] - otherBase < self.best) {
+                    self.best = other.best = gc + 1 + otherG[n] - otherBase;
+                    self.meet = other.meet = n;
+                }
+            }
+        }
+    }
+
+    /**
+     * A* по рельефу: стоимость шага — стоимость клетки, в которую входим. Эвристика рельефа согласована,
+     * поэтому закрытую клетку не нужно открывать повторно.
+     */
+    private List<Edge> weightedAStar(int sx, int sy, int tx, int ty, boolean[][] blocked,
+                                     BattleEvents.PathSearchEvent event) {
+        int cells = Board.CELLS;
+        int start = sx * Board.HEIGHT + sy;
+        int goal = tx * Board.HEIGHT + ty;
+
+        int[] g = new int[cells];
+        int[] parent = new int[cells];
+        boolean[] closed = new boolean[cells];
+        Arrays.fill(g, Integer.MAX_VALUE);
+        g[start] = 0;
+        parent[start] = -1;
+
+        LongMinHeap open = new LongMinHeap(64);
+        open.add(LongMinHeap.encode(terrain.heuristic(start, goal), start));
+
+        while (!open.isEmpty()) {
+            int cur = LongMinHeap.cell(open.poll());
+            if (closed[cur]) continue;
+            closed[cur] = true;
+            event.nodesExpanded++;
+
+            if (cur == goal) {
+                return pathTo(goal, parent);
+            }
+
+            int cx = cur / Board.HEIGHT;
+            int cy = cur % Board.HEIGHT;
+            for (int d = 0; d < 8; d++) {
+                int nx = cx + Board.DX[d];
+                int ny = cy + Board.DY[d];
+                if (!Board.inside(nx, ny) || blocked[nx][ny]) continue;
+
+                int n = nx * Board.HEIGHT + ny;
+                if (closed[n]) continue;
+
+                int ng = g[cur] + terrain.cost(n);
+                if (ng < g[n]) {
+                    g[n] = ng;
+                    parent[n] = cur;
+                    open.add(LongMinHeap.encode(ng + terrain.heuristic(n, goal), n));
+                }
+            }
+        }
+        return Collections.emptyList();
+    }
+
+    private List<Edge> pathTo(int goal, int[] parent) {
+        LinkedList<Edge> path = new LinkedList<>();
+        for (int c = goal; c != -1; c = parent[c]) {
+            path.addFirst(new Edge(c / Board.HEIGHT, c % Board.HEIGHT));
+        }
+        return path;
+    }
+
     private boolean[][] buildBlockedMap(List<Unit> units, Unit attacker, Unit target) {
-        boolean[][] blocked = new boolean[WIDTH][HEIGHT];
+        boolean[][] blocked = new boolean[Board.WIDTH][Board.HEIGHT];
 
         if (units == null) return blocked;
 
@@ -80,48 +381,115 @@ public final class UnitTargetPathFinderImpl implements UnitTargetPathFinder {
 
             int x = u.getxCoordinate();
             int y = u.getyCoordinate();
-            if (inside(x, y)) {
+            if (Board.inside(x, y)) {
                 blocked[x][y] = true;
             }
         }
+
+        if (terrain != null) {
+            for (int x = 0; x < Board.WIDTH; x++) {
+                for (int y = 0; y < Board.HEIGHT; y++) {
+                    if (!terrain.passable(x * Board.HEIGHT + y)) blocked[x][y] = true;
+                }
+            }
+        }
         return blocked;
     }
 
-    private boolean inside(int x, int y) {
-        return x >= 0 && x < WIDTH && y >= 0 && y < HEIGHT;
-    }
 
     // Chebyshev distance (для диагонального движения)
     private int heuristic(int x, int y, int tx, int ty) {
         return Math.max(Math.abs(x - tx), Math.abs(y - ty));
     }
 
-    private List<Edge> buildPath(Node end) {
-        LinkedList<Edge> path = new LinkedList<>();
-        Node cur = end;
-        while (cur != null) {
-            path.addFirst(new Edge(cur.x, cur.y));
-            cur = cur.prev;
+    // состояние поиска переиспользуется в пределах потока: [0] — прямая сторона (и обычный A*), [1] — обратная
+    private static final ThreadLocal<Frontier[]> SEARCH =
+            ThreadLocal.withInitial(() -> new Frontier[]{new Frontier(), new Frontier()});
+
+    /**
+     * Одна сторона поиска: g, предки, очередь и конец, к которому ведёт эвристика. Массивы не чистятся между
+     * поисками: g хранится со сдвигом {@link #base}, который растёт с каждым поиском, поэтому значения меньше
+     * base остались от прошлых поисков и означают «клетка не достигнута».
+     */
+    private static final class Frontier {
+        private static final int STAMP = 1024; // больше любого g на поле
+
+        final int[] g = new int[Board.CELLS];
+        final int[] parent = new int[Board.CELLS];
+        final BucketQueue open = new BucketQueue();
+        int base;
+        int hx;
+        int hy;
+        int best; // длина лучшей найденной встречи двух сторон
+        int meet;
+
+        void reset(int origin, int hx, int hy, int h) {
+            if (base > Integer.MAX_VALUE - 2 * STAMP) {
+                Arrays.fill(g, 0);
+                base = 0;
+            }
+            base += STAMP;
+            this.hx = hx;
+            this.hy = hy;
+            this.best = Integer.MAX_VALUE;
+            this.meet = -1;
+            g[origin] = base;
+            parent[origin] = -1;
+            open.reset(h, origin);
         }
-        return path;
     }
 
-    private static final class Node implements Comparable<Node> {
-        final int x, y;
-        final int g; // distance from start
-        final int f; // g + h
-        Node prev;
+    /**
+     * Очередь A* при шаге стоимостью 1 и Chebyshev-эвристике. f соседа равно f текущей клетки, f + 1 или f + 2,
+     * поэтому все открытые клетки лежат в трёх соседних значениях f, и стек для f выбирается как {@code f % 3}:
+     * добавление и извлечение — O(1). Внутри стека последней кладётся клетка с большим g, так что при равном f
+     * первой раскрывается клетка дальше от своего старта.
+     */
+    static final class BucketQueue {
+        final int[][] stacks = {new int[32], new int[32], new int[32]}; // A* пишет в них напрямую
+        private final int[] sizes = new int[3];
+        private int f;      // наименьшее f среди непустых стеков, если очередь не пуста
+        private int bucket; // f % 3, ведётся без деления
+        private int size;
+
+        void reset(int f, int cell) {
+            sizes[0] = sizes[1] = sizes[2] = 0;
+            size = 0;
+            this.f = f;
+            this.bucket = f % 3;
+            add(f, cell);
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        int size() {
+            return size;
+        }
+
+        int minF() {
+            while (sizes[bucket] == 0) { // очередь не пуста, а f открытых клеток не больше f + 2
+                f++;
+                bucket = bucket == 2 ? 0 : bucket + 1;
+            }
+            return f;
+        }
 
-        Node(int x, int y, int g, int h) {
-            this.x = x;
-            this.y = y;
-            this.g = g;
-            this.f = g + h;
+        void add(int f, int cell) {
+            int b = bucket + (f - this.f); // f - this.f в 0..2
+            if (b >= 3) b -= 3;
+            if (sizes[b] == stacks[b].length) {
+                stacks[b] = Arrays.copyOf(stacks[b], sizes[b] * 2);
+            }
+            stacks[b][sizes[b]++] = cell;
+            size++;
         }
 
-        @Override
-        public int compareTo(Node o) {
-            return Integer.compare(this.f, o.f);
+        int poll() {
+            minF();
+            size--;
+            return stacks[bucket][--sizes[bucket]];
         }
     }
 }
@@ -0,0 +1,191 @@
+package org.example;
+
+import junit.framework.TestCase;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+public class BattleServerTest extends TestCase {
+
+    private BattleServer server;
+    private HttpClient client;
+
+    protected void setUp() throws Exception {
+        server = BattleServer.start(0);
+        client = HttpClient.newHttpClient();
+    }
+
+    protected void tearDown() {
+        server.close();
+    }
+
+    public void testPresetEndpoint() throws Exception {
+        HttpResponse<String> resp = post("/preset", ArmyCodec.writePreset(100, LoadTest.sampleTypes(0)));
+
+        assertEquals(200, resp.statusCode());
+        assertTrue(resp.body().startsWith("{\"points\":"));
+    }
+
+    public void testSimulateEndpoint() throws Exception {
+        HttpResponse<String> resp = post("/simulate",
+                ArmyCodec.writeSimulate(LoadTest.sampleTypes(1), LoadTest.sampleTypes(1)));
+
+        assertEquals(200, resp.statusCode());
+        assertTrue(resp.body().contains("\"winner\":"));
+    }
+
+    public void testMalformedPayloadIsRejected() throws Exception {
+        HttpResponse<String> resp = post("/simulate", new byte[]{1, 2});
+        assertEquals(400, resp.statusCode());
+    }
+
+    public void testNonPositiveStatsAreRejected() throws Exception {
+        List<ArmyCodec.TypeEntry> harmless = List.of(new ArmyCodec.TypeEntry("Knight", "Melee", 100, 0, 30, 2));
+        HttpResponse<String> resp = post("/simulate", ArmyCodec.writeSimulate(harmless, harmless));
+        assertEquals(400, resp.statusCode());
+    }
+
+    public void testZeroAttackTypeIsAcceptedInPresetCatalogue() throws Exception {
+        List<ArmyCodec.TypeEntry> catalogue = List.of(
+                new ArmyCodec.TypeEntry("Knight", "Melee", 100, 40, 30, 0),
+                new ArmyCodec.TypeEntry("Wall", "Melee", 500, 0, 5, 0));
+        HttpResponse<String> resp = post("/preset", ArmyCodec.writePreset(100, catalogue));
+
+        assertEquals(200, resp.statusCode());
+        assertTrue(resp.body().startsWith("{\"points\":"));
+    }
+
+    public void testOversizedBodyAnswers413() throws Exception {
+        // объявленная длина больше предела: ответ приходит до чтения тела
+        assertEquals(413, rawPost("/preset", "Content-Length: " + (ArmyCodec.MAX_BODY_BYTES + 1), new byte[0]));
+
+        // без Content-Length (chunked) тело читается не дальше предела
+        byte[] chunk = new byte[ArmyCodec.MAX_BODY_BYTES + 1];
+        ByteArrayOutputStream chunked = new ByteArrayOutputStream();
+        chunked.write((Integer.toHexString(chunk.length) + "\r\n").getBytes(StandardCharsets.US_ASCII));
+        chunked.write(chunk);
+        chunked.write("\r\n0\r\n\r\n".getBytes(StandardCharsets.US_ASCII));
+        assertEquals(413, rawPost("/simulate", "Transfer-Encoding: chunked", chunked.toByteArray()));
+
+        // тело предельной длины принимается: нули разбираются как две пустые армии
+        assertEquals(200, post("/simulate", new byte[ArmyCodec.MAX_BODY_BYTES]).statusCode());
+    }
+
+    public void testOverlongTypeNameIsRejected() throws Exception {
+        String name = "K".repeat(ArmyCodec.MAX_NAME_CHARS + 1);
+        List<ArmyCodec.TypeEntry> army = List.of(new ArmyCodec.TypeEntry(name, "Melee", 100, 40, 30, 1));
+        assertEquals(400, post("/simulate", ArmyCodec.writeSimulate(army, army)).statusCode());
+    }
+
+    public void testLoadTestReportsPercentiles() throws Exception {
+        LoadTest.Report report = LoadTest.run(URI.create("http://127.0.0.1:" + server.port()), "preset", 50, 8);
+
+        assertEquals(0, report.getErrors());
+        assertTrue(report.percentileMillis(50) <= report.percentileMillis(99));
+    }
+
+    public void testConcurrentIdenticalPresetsAreCoalesced() throws Exception {
+        // большой каталог, чтобы первый запрос ещё считался, когда приходят остальные
+        List<ArmyCodec.TypeEntry> catalogue = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            catalogue.add(new ArmyCodec.TypeEntry("Type" + i, "Melee", 10 + i % 200, 1 + i % 50, 1 + i % 20, 0));
+        }
+        byte[] payload = ArmyCodec.writePreset(50_000, catalogue);
+
+        for (int attempt = 0; attempt < 5 && stat("presetsCoalesced") == 0; attempt++) {
+            for (HttpResponse<String> resp : postConcurrently("/preset", payload, 16)) {
+                assertEquals(200, resp.statusCode());
+            }
+        }
+        assertTrue(stat("presetsCoalesced") > 0);
+    }
+
+    public void testSimulationsAreBatched() throws Exception {
+        server.close();
+        server = BattleServer.start(0, new BattleServer.Config().batchSize(8).batchWindowMillis(50));
+
+        byte[] payload = ArmyCodec.writeSimulate(LoadTest.sampleTypes(1), LoadTest.sampleTypes(1));
+        for (HttpResponse<String> resp : postConcurrently("/simulate", payload, 16)) {
+            assertEquals(200, resp.statusCode());
+        }
+
+        assertEquals(16, stat("simulateRequests"));
+        assertTrue(stat("batches") < stat("simulateRequests"));
+    }
+
+    public void testFullQueueAnswers503() throws Exception {
+        server.close();
+        server = BattleServer.start(0, new BattleServer.Config()
+                .workers(1).workerQueue(1).pendingSimulations(1).batchSize(1).batchWindowMillis(0));
+
+        byte[] payload = ArmyCodec.writeSimulate(LoadTest.sampleTypes(11), LoadTest.sampleTypes(11));
+        int overloaded = 0;
+        for (HttpResponse<String> resp : postConcurrently("/simulate", payload, 32)) {
+            assertTrue(resp.statusCode() == 200 || resp.statusCode() == 503);
+            if (resp.statusCode() == 503) overloaded++;
+        }
+
+        assertTrue(overloaded > 0);
+        assertEquals(overloaded, stat("rejected"));
+    }
+
+    private List<HttpResponse<String>> postConcurrently(String path, byte[] body, int count) throws Exception {
+        HttpRequest req = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + server.port() + path))
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body))
+                .build();
+        List<CompletableFuture<HttpResponse<String>>> futures = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            futures.add(client.sendAsync(req, HttpResponse.BodyHandlers.ofString()));
+        }
+        List<HttpResponse<String>> responses = new ArrayList<>();
+        for (CompletableFuture<HttpResponse<String>> f : futures) {
+            responses.add(f.get(60, TimeUnit.SECONDS));
+        }
+        return responses;
+    }
+
+    private long stat(String name) throws Exception {
+        HttpRequest req = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + server.port() + "/stats")).build();
+        Matcher m = Pattern.compile("\"" + name + "\":(\\d+)")
+                .matcher(client.send(req, HttpResponse.BodyHandlers.ofString()).body());
+        assertTrue("no " + name + " in /stats", m.find());
+        return Long.parseLong(m.group(1));
+    }
+
+    // HttpClient не отдаёт ответ, присланный до конца загрузки тела, поэтому запрос пишется в сокет вручную
+    private int rawPost(String path, String header, byte[] body) throws Exception {
+        try (Socket socket = new Socket("127.0.0.1", server.port())) {
+            socket.setSoTimeout(10_000);
+            OutputStream out = socket.getOutputStream();
+            out.write(("POST " + path + " HTTP/1.1\r\nHost: 127.0.0.1\r\n" + header + "\r\n\r\n")
+                    .getBytes(StandardCharsets.US_ASCII));
+            out.write(body);
+            out.flush();
+
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+            String status = in.readLine(); // HTTP/1.1 413 Request Entity Too Large
+            return Integer.parseInt(status.split(" ")[1]);
+        }
+    }
+
+    private HttpResponse<String> post(String path, byte[] body) throws Exception {
+        HttpRequest req = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + server.port() + path))
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body))
+                .build();
+        return client.send(req, HttpResponse.BodyHandlers.ofString());
+    }
+}
@@ -0,0 +1,60 @@
+package org.example;
+
+import com.battle.heroes.army.Army;
+import com.battle.heroes.army.Unit;
+import jdk.jfr.Recording;
+import junit.framework.TestCase;
+import programs.BattleEvents;
+import programs.HeadlessBattle;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+public class FlightRecordingAnalyzerTest extends TestCase {
+
+    public void testEventsAreOffByDefault() throws Exception {
+        Path file = Files.createTempFile("heroes-off", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.start();
+            new HeadlessBattle().run(army("Swordsman", 2), army("Swordsman", 2));
+            recording.stop();
+            recording.dump(file);
+        }
+
+        int events = FlightRecordingAnalyzer.report(file, 5, new PrintStream(new ByteArrayOutputStream()));
+        assertEquals(0, events);
+        Files.deleteIfExists(file);
+    }
+
+    public void testReportOverRecordedBattle() throws Exception {
+        Path file = Files.createTempFile("heroes", ".jfr");
+        try (Recording recording = new Recording()) {
+            BattleEvents.enableAll(recording);
+            recording.start();
+            new HeadlessBattle().run(army("Swordsman", 3), army("Knight", 3));
+            recording.stop();
+            recording.dump(file);
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        int events = FlightRecordingAnalyzer.report(file, 5, new PrintStream(bytes));
+        String text = bytes.toString();
+
+        assertTrue(events > 0);
+        assertTrue(text.contains("Slowest rounds:"));
+        assertTrue(text.contains("Path search hotspots"));
+        Files.deleteIfExists(file);
+    }
+
+    private static Army army(String type, int count) {
+        List<Unit> units = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            units.add(new Unit(type + "_" + i, type, 60, 20, 10, "Melee", null, null, 0, 0));
+        }
+        return new Army(units);
+    }
+}
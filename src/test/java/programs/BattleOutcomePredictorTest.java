@@ -0,0 +1,114 @@
+package programs;
+
+import com.battle.heroes.army.Army;
+import com.battle.heroes.army.Unit;
+import com.battle.heroes.army.programs.PrintBattleLog;
+import com.battle.heroes.army.programs.Program;
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class BattleOutcomePredictorTest extends TestCase {
+
+    private BattleOutcomePredictor predictor;
+
+    protected void setUp() {
+        predictor = new BattleOutcomePredictor();
+    }
+
+    public void testStrongerSideWinsWithinLookahead() {
+        Unit strong = new Unit("S", "T1", 100, 50, 10, "P", null, null, 0, 0);
+        Unit weak = new Unit("W", "T1", 40, 5, 10, "P", null, null, 0, 1);
+
+        BattleOutcomePredictor.Prediction p = predictor.predict(armyOf(strong), armyOf(weak));
+
+        assertEquals(BattleOutcomePredictor.Side.PLAYER, p.getWinner());
+        assertEquals(1, p.getRounds());
+        assertEquals(1, p.getPlayerSurvivors());
+        assertEquals(0, p.getComputerSurvivors());
+        // армии не изменяются
+        assertTrue(weak.isAlive());
+        assertEquals(40, weak.getHealth());
+    }
+
+    public void testLongBattleIsExtrapolated() {
+        List<Unit> player = new ArrayList<>();
+        List<Unit> computer = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            player.add(new Unit("p" + i, "T1", 1000, 10, 10, "P", null, null, 0, i));
+            computer.add(new Unit("c" + i, "T1", 1000, 5, 10, "P", null, null, 26, i));
+        }
+
+        BattleOutcomePredictor.Prediction p = predictor.predict(new Army(player), new Army(computer));
+
+        assertEquals(BattleOutcomePredictor.Side.PLAYER, p.getWinner());
+        assertTrue(p.getRounds() > 2);
+        assertTrue(p.getPlayerSurvivors() > 0 && p.getPlayerSurvivors() <= 10);
+    }
+
+    public void testCalibrateAgainstFullSimulation() throws InterruptedException {
+        Unit playerUnit = new Unit("Player", "T1", 10, 20, 5, "P", null, null, 0, 0);
+        Unit computerUnit = new Unit("Computer", "T1", 10, 5, 5, "P", null, null, 0, 1);
+        playerUnit.setProgram(new HitProgram(playerUnit, computerUnit));
+        computerUnit.setProgram(new HitProgram(computerUnit, playerUnit));
+
+        PrintBattleLog silent = (attacker, target) -> { };
+        BattleOutcomePredictor.Calibration c = predictor.calibrate(
+                Collections.singletonList(new BattleOutcomePredictor.Matchup(armyOf(playerUnit), armyOf(computerUnit))),
+                new SimulateBattleImpl(silent));
+
+        assertEquals(1, c.getSamples());
+        assertEquals(1.0, c.winnerAccuracy(), 0.0);
+        assertEquals(0.0, c.meanSurvivorError(), 0.0);
+    }
+
+    public void testZeroAttackArmiesAreADraw() {
+        Unit player = new Unit("P", "T1", 100, 0, 10, "P", null, null, 0, 0);
+        Unit computer = new Unit("C", "T1", 100, 0, 10, "P", null, null, 26, 0);
+
+        BattleOutcomePredictor.Prediction p = predictor.predict(armyOf(player), armyOf(computer));
+
+        assertEquals(BattleOutcomePredictor.Side.DRAW, p.getWinner());
+        assertEquals(2, p.getRounds());
+        assertEquals(1, p.getPlayerSurvivors());
+        assertEquals(1, p.getComputerSurvivors());
+    }
+
+    public void testCalibrateCountsBattleWithBothSidesAliveAsDraw() throws InterruptedException {
+        Unit strong = new Unit("S", "T1", 1000, 50, 10, "P", null, null, 0, 0);
+        Unit weak = new Unit("W", "T1", 1000, 5, 10, "P", null, null, 26, 0);
+
+        // симуляция, оборванная до конца боя: обе стороны живы
+        BattleOutcomePredictor.Calibration c = predictor.calibrate(
+                Collections.singletonList(new BattleOutcomePredictor.Matchup(armyOf(strong), armyOf(weak))),
+                (player, computer) -> { });
+
+        assertEquals(1, c.getSamples());
+        assertEquals(0.0, c.winnerAccuracy(), 0.0); // предсказана победа игрока, а не ничья
+    }
+
+    private static Army armyOf(Unit... units) {
+        return new Army(new ArrayList<>(Arrays.asList(units)));
+    }
+
+    private static class HitProgram extends Program {
+        private final Unit target;
+
+        HitProgram(Unit self, Unit target) {
+            super(self, null, null, null);
+            this.target = target;
+        }
+
+        @Override
+        public Unit attack() {
+            if (target.isAlive()) {
+                target.setHealth(target.getHealth() - unit.getBaseAttack());
+                if (target.getHealth() <= 0) target.setAlive(false);
+            }
+            return target;
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package programs;
+
+import com.battle.heroes.army.Army;
+import com.battle.heroes.army.Unit;
+import junit.framework.TestCase;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+public class BattleTranspositionTableTest extends TestCase {
+
+    public void testKeyTracksTurnOrderOfEqualAttackUnits() {
+        BattleTranspositionTable table = new BattleTranspositionTable(4);
+        Unit a = new Unit("a", "T1", 10, 5, 5, "P", null, null, 0, 0);
+        Unit b = new Unit("b", "T2", 20, 5, 5, "P", null, null, 1, 3);
+        Unit c = new Unit("c", "T1", 10, 5, 5, "P", null, null, 26, 0);
+
+        // при равной атаке первым ходит тот, кто раньше в списке армии, — это разные состояния
+        long k1 = table.snapshot(new Army(Arrays.asList(a, b)), new Army(Collections.singletonList(c))).key;
+        long k2 = table.snapshot(new Army(Arrays.asList(b, a)), new Army(Collections.singletonList(c))).key;
+        assertFalse(k1 == k2);
+
+        // при разной атаке порядок ходов задаёт атака, а не список
+        b.setBaseAttack(7);
+        long k3 = table.snapshot(new Army(Arrays.asList(a, b)), new Army(Collections.singletonList(c))).key;
+        long k4 = table.snapshot(new Army(Arrays.asList(b, a)), new Army(Collections.singletonList(c))).key;
+        assertEquals(k3, k4);
+
+        b.setHealth(19);
+        long k5 = table.snapshot(new Army(Arrays.asList(a, b)), new Army(Collections.singletonList(c))).key;
+        assertFalse(k3 == k5);
+    }
+
+    public void testIdenticalUnitsDoNotCancelOut() {
+        BattleTranspositionTable table = new BattleTranspositionTable(4);
+        Unit alive = new Unit("a", "T1", 10, 5, 5, "P", null, null, 0, 0);
+        Unit c = new Unit("c", "T1", 10, 5, 5, "P", null, null, 26, 0);
+
+        // две пары одинаковых мёртвых юнитов: разные типы и клетки, но при XOR обе пары дали бы ноль
+        Unit d1 = new Unit("d1", "T2", 0, 3, 5, "P", null, null, 4, 4);
+        Unit d2 = new Unit("d2", "T2", 0, 3, 5, "P", null, null, 4, 4);
+        Unit e1 = new Unit("e1", "T3", 0, 8, 5, "P", null, null, 9, 2);
+        Unit e2 = new Unit("e2", "T3", 0, 8, 5, "P", null, null, 9, 2);
+        for (Unit u : Arrays.asList(d1, d2, e1, e2)) u.setAlive(false);
+
+        BattleTranspositionTable.RoundState withD = table.snapshot(new Army(Arrays.asList(alive, d1, d2)), armyOf(c));
+        BattleTranspositionTable.RoundState withE = table.snapshot(new Army(Arrays.asList(alive, e1, e2)), armyOf(c));
+        assertFalse(withD.key == withE.key);
+        assertFalse(withD.check == withE.check);
+
+        table.storeOutcome(Collections.singletonList(withD));
+        assertFalse(table.tryApply(withE));
+    }
+
+    public void testMirroredBoardSharesKey() {
+        BattleTranspositionTable table = new BattleTranspositionTable(4, true);
+        Unit p = new Unit("p", "T1", 10, 9, 5, "P", null, null, 2, 4);
+        Unit c = new Unit("c", "T2", 15, 3, 5, "P", null, null, 25, 7);
+        // зеркальная расстановка: стороны поменялись, x отражён
+        Unit pm = new Unit("pm", "T2", 15, 3, 5, "P", null, null, 1, 7);
+        Unit cm = new Unit("cm", "T1", 10, 9, 5, "P", null, null, 24, 4);
+
+        long k = table.snapshot(armyOf(p), armyOf(c)).key;
+        long km = table.snapshot(armyOf(pm), armyOf(cm)).key;
+        assertEquals(k, km);
+    }
+
+    public void testBoundedSizeEvictsOldest() {
+        BattleTranspositionTable table = new BattleTranspositionTable(2);
+        for (int i = 0; i < 5; i++) {
+            Unit u = new Unit("u", "T1", 10 + i, 5, 5, "P", null, null, 0, 0);
+            table.storeOutcome(Collections.singletonList(table.snapshot(armyOf(u), new Army())));
+        }
+        assertEquals(2, table.size());
+        assertEquals(5, table.getStores());
+        assertEquals(3, table.getEvictions());
+    }
+
+    private static Army armyOf(Unit unit) {
+        return new Army(Collections.singletonList(unit));
+    }
+}
@@ -0,0 +1,154 @@
+package programs;
+
+import com.battle.heroes.army.Army;
+import com.battle.heroes.army.Unit;
+import junit.framework.TestCase;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class EvolutionaryPresetGeneratorTest extends TestCase {
+
+    private static List<Unit> standardTypes() {
+        return Arrays.asList(
+                new Unit("Archer", "Archer", 50, 30, 20, "Ranged", null, null, 0, 0),
+                new Unit("Knight", "Knight", 100, 40, 30, "Melee", null, null, 0, 0),
+                new Unit("Pikeman", "Pikeman", 80, 25, 20, "Melee", null, null, 0, 0),
+                new Unit("Swordsman", "Swordsman", 60, 20, 15, "Melee", null, null, 0, 0)
+        );
+    }
+
+    private static Map<String, Integer> countByType(Army army) {
+        Map<String, Integer> counts = new HashMap<>();
+        for (Unit u : army.getUnits()) {
+            counts.merge(u.getUnitType(), 1, Integer::sum);
+        }
+        return counts;
+    }
+
+    private static void assertValidPreset(Army army, int maxPoints) {
+        int spent = 0;
+        for (Unit u : army.getUnits()) spent += u.getCost();
+        assertEquals(spent, army.getPoints());
+        assertTrue(spent <= maxPoints);
+        assertTrue(army.getUnits().size() <= HeadlessBattle.MAX_UNITS_PER_SIDE);
+        for (int n : countByType(army).values()) {
+            assertTrue(n <= 11);
+        }
+    }
+
+    // детерминированная оценка: сумма атаки, рыцари ценятся вдвое
+    private static final EvolutionaryPresetGenerator.Fitness ATTACK = (types, counts) -> {
+        double score = 0;
+        for (int i = 0; i < counts.length; i++) {
+            Unit t = types.get(i);
+            score += counts[i] * t.getBaseAttack() * ("Knight".equals(t.getUnitType()) ? 2 : 1);
+        }
+        return score;
+    };
+
+    public void testBattleFitnessRespectsConstraints() {
+        EvolutionaryPresetGenerator generator = new EvolutionaryPresetGenerator(new EvolutionaryPresetGenerator.Config()
+                .seed(7).generations(3).populationSize(6).battlesPerOpponent(1).randomOpponents(1).threads(2));
+
+        Army army = generator.generate(standardTypes(), 300);
+
+        assertValidPreset(army, 300);
+        assertFalse(army.getUnits().isEmpty());
+    }
+
+    public void testTimeBudgetStopsSearch() {
+        EvolutionaryPresetGenerator generator = new EvolutionaryPresetGenerator(new EvolutionaryPresetGenerator.Config()
+                .seed(3).generations(0).timeBudgetMillis(200).populationSize(6).battlesPerOpponent(1).randomOpponents(1));
+
+        long start = System.nanoTime();
+        Army army = generator.generate(standardTypes(), 200);
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        assertValidPreset(army, 200);
+        assertTrue("search took " + elapsedMillis + " ms", elapsedMillis < 5_000);
+    }
+
+    public void testBattleFitnessIsReproducibleWithSeed() {
+        EvolutionaryPresetGenerator.Config config = new EvolutionaryPresetGenerator.Config()
+                .seed(42).generations(4).populationSize(8);
+
+        Map<String, Integer> first = countByType(new EvolutionaryPresetGenerator(config).generate(standardTypes(), 600));
+        for (int run = 0; run < 3; run++) {
+            Map<String, Integer> again = countByType(new EvolutionaryPresetGenerator(config.threads(1 + run))
+                    .generate(standardTypes(), 600));
+            assertEquals(first, again);
+        }
+    }
+
+    public void testSeededHeadlessBattleRepeats() throws InterruptedException {
+        HeadlessBattle battle = new HeadlessBattle();
+        int[] counts = {5, 4, 5, 6};
+
+        HeadlessBattle.Result a = battle.run(EvolutionaryPresetGenerator.armyOf(standardTypes(), counts),
+                EvolutionaryPresetGenerator.armyOf(standardTypes(), counts), 7);
+        HeadlessBattle.Result b = battle.run(EvolutionaryPresetGenerator.armyOf(standardTypes(), counts),
+                EvolutionaryPresetGenerator.armyOf(standardTypes(), counts), 7);
+
+        assertEquals(a.getAttacks(), b.getAttacks());
+        assertEquals(a.getPlayerHealth(), b.getPlayerHealth());
+        assertEquals(a.getComputerHealth(), b.getComputerHealth());
+    }
+
+    public void testSameSeedGivesSamePresetRegardlessOfThreads() {
+        EvolutionaryPresetGenerator.Config single = new EvolutionaryPresetGenerator.Config()
+                .seed(11).generations(15).threads(1);
+        EvolutionaryPresetGenerator.Config parallel = new EvolutionaryPresetGenerator.Config()
+                .seed(11).generations(15).threads(4);
+
+        Army a = new EvolutionaryPresetGenerator(single, ATTACK).generate(standardTypes(), 700);
+        Army b = new EvolutionaryPresetGenerator(parallel, ATTACK).generate(standardTypes(), 700);
+
+        assertEquals(countByType(a), countByType(b));
+        assertEquals(a.getPoints(), b.getPoints());
+    }
+
+    public void testSearchFindsOptimumOfDeterministicFitness() {
+        // 11 рыцарей (330 очков) + 11 лучников (220) укладываются в 550 и дают максимум оценки
+        EvolutionaryPresetGenerator generator = new EvolutionaryPresetGenerator(new EvolutionaryPresetGenerator.Config()
+                .seed(5).generations(60), ATTACK);
+
+        Map<String, Integer> counts = countByType(generator.generate(standardTypes(), 550));
+
+        assertEquals(Integer.valueOf(11), counts.get("Knight"));
+        assertEquals(Integer.valueOf(11), counts.get("Archer"));
+    }
+
+    public void testCustomOpponentsAreUsed() {
+        Army opponent = EvolutionaryPresetGenerator.armyOf(standardTypes(), new int[]{0, 0, 0, 5});
+        EvolutionaryPresetGenerator generator = new EvolutionaryPresetGenerator(new EvolutionaryPresetGenerator.Config()
+                .seed(2).generations(2).populationSize(4).battlesPerOpponent(1).opponents(List.of(opponent)));
+
+        Army army = generator.generate(standardTypes(), 150);
+
+        assertValidPreset(army, 150);
+        // шаблон эталона не тратится в боях
+        for (Unit u : opponent.getUnits()) {
+            assertTrue(u.isAlive());
+        }
+    }
+
+    public void testNothingAffordable() {
+        Unit dragon = new Unit("Dragon", "Dragon", 500, 100, 1000, "Fire", null, null, 0, 0);
+        Army army = new EvolutionaryPresetGenerator().generate(List.of(dragon), 500);
+
+        assertTrue(army.getUnits().isEmpty());
+        assertEquals(0, army.getPoints());
+    }
+
+    public void testBudgetIsRequired() {
+        try {
+            new EvolutionaryPresetGenerator(new EvolutionaryPresetGenerator.Config().generations(0));
+            fail("expected IllegalArgumentException");
+        } catch (IllegalArgumentException expected) {
+            // ok
+        }
+    }
+}
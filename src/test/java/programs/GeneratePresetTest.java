@@ -4,8 +4,12 @@ import com.battle.heroes.army.Army;
 import com.battle.heroes.army.Unit;
 import junit.framework.TestCase;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Random;
 
 public class GeneratePresetTest extends TestCase {
 
@@ -51,4 +55,74 @@ public class GeneratePresetTest extends TestCase {
         assertTrue(army.getUnits().isEmpty());
         assertEquals(0, army.getPoints());
     }
+
+    public void testDominatedTypeIsPrunedWhenDominatorsCoverBudget() {
+        Unit archer = new Unit("Archer", "ArcherType", 50, 20, 10, "Pierce", null, null, 0, 0);
+        archer.setCost(10);
+        Unit peasant = new Unit("Peasant", "PeasantType", 10, 5, 10, "Melee", null, null, 0, 0);
+        peasant.setCost(10);
+
+        Map<String, Integer> small = countByType(generator.generate(Arrays.asList(peasant, archer), 100));
+        assertEquals(Integer.valueOf(10), small.get("ArcherType"));
+        assertNull(small.get("PeasantType"));
+
+        // 11 лучников не покрывают бюджет -> крестьяне добирают остаток
+        Map<String, Integer> large = countByType(generator.generate(Arrays.asList(peasant, archer), 200));
+        assertEquals(Integer.valueOf(11), large.get("ArcherType"));
+        assertEquals(Integer.valueOf(9), large.get("PeasantType"));
+    }
+
+    public void testLargeCatalogueGenerationIsBounded() {
+        Random rnd = new Random(7);
+        List<Unit> catalogue = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            Unit u = new Unit("U" + i, "Type" + i, 10 + rnd.nextInt(200), 1 + rnd.nextInt(50), 0, "Melee", null, null, 0, 0);
+            u.setCost(1 + rnd.nextInt(20));
+            catalogue.add(u);
+        }
+
+        generator.generate(catalogue, 50_000); // прогрев
+
+        long start = System.nanoTime();
+        Army army = generator.generate(catalogue, 50_000);
+        long millis = (System.nanoTime() - start) / 1_000_000;
+
+        assertTrue("generation took " + millis + " ms", millis < 500);
+        assertTrue(army.getPoints() <= 50_000);
+        for (int count : countByType(army).values()) {
+            assertTrue(count <= 11);
+        }
+    }
+
+    public void testNoTypeFitsIntoLeftoverPoints() {
+        Random rnd = new Random(11);
+        for (int round = 0; round < 200; round++) {
+            List<Unit> catalogue = new ArrayList<>();
+            int types = 1 + rnd.nextInt(30);
+            for (int i = 0; i < types; i++) {
+                Unit u = new Unit("U" + i, "Type" + i, 10 + rnd.nextInt(200), 1 + rnd.nextInt(50), 0, "Melee", null, null, 0, 0);
+                u.setCost(1 + rnd.nextInt(40));
+                catalogue.add(u);
+            }
+            int maxPoints = 1 + rnd.nextInt(3000);
+
+            Army army = generator.generate(catalogue, maxPoints);
+            Map<String, Integer> counts = countByType(army);
+            int left = maxPoints - army.getPoints();
+            // один проход по рейтингу уже выбирает всё, что помещается: добирать остаток нечем
+            for (Unit u : catalogue) {
+                int count = counts.getOrDefault(u.getUnitType(), 0);
+                assertTrue(u.getUnitType() + " still fits: " + count + " taken, cost " + u.getCost() + ", left " + left,
+                        count == 11 || u.getCost() > left);
+            }
+        }
+    }
+
+    private static Map<String, Integer> countByType(Army army) {
+        Map<String, Integer> counts = new HashMap<>();
+        for (Unit u : army.getUnits()) {
+            counts.merge(u.getUnitType(), 1, Integer::sum);
+        }
+        return counts;
+    }
 }
@@ -0,0 +1,440 @@
+package programs;
+
+import com.battle.heroes.army.Army;
+import com.battle.heroes.army.Unit;
+import com.battle.heroes.army.programs.Edge;
+import junit.framework.TestCase;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Регрессионные замеры производительности на больших сценариях.
+ * Запуск: {@code mvn -Pperf test}; в обычной сборке тест исключён.
+ * <p>
+ * Для каждого сценария меряются пропускная способность (оп/с) и выделение памяти на операцию
+ * (по счётчику аллокаций потока). Результат сравнивается с {@code src/test/resources/perf-baseline.json}:
+ * тест падает, если пропускная способность упала или аллокации выросли больше чем на порог
+ * ({@code -Dperf.threshold}, по умолчанию 0.25). {@code -Dperf.record=true} перезаписывает базовую линию
+ * текущими значениями.
+ * <p>
+ * Пропускная способность сравнивается не в абсолютных оп/с, а в долях калибровочной операции (сортировка
+ * фиксированного массива): перед каждым прогоном сценария в том же потоке замеряется короткий калибровочный
+ * прогон, и берётся медиана отношений по прогонам. Так замер меньше зависит от соседей по машине и переносится
+ * между машинами, которые отличаются в основном скоростью процессора; при сильном расхождении базовую линию
+ * перезаписывают на своей машине.
+ */
+public class PerformanceRegressionTest extends TestCase {
+
+    private static final long WARMUP_NANOS = 3_000_000_000L;
+    private static final long TRIAL_NANOS = 500_000_000L;
+    private static final long CALIBRATION_NANOS = 200_000_000L;
+    private static final int TRIALS = 7;
+
+    private static final long BATTLE_SEED = 7L;
+    private static final int[] CALIBRATION_DATA = new Random(0).ints(4096).toArray();
+
+    private static final Pattern ENTRY = Pattern.compile(
+            "\"([^\"]+)\"\\s*:\\s*\\{\\s*\"opsPerSecond\"\\s*:\\s*([0-9.eE+-]+)\\s*,\\s*\"bytesPerOp\"\\s*:\\s*([0-9.eE+-]+)"
+                    + "\\s*,\\s*\"relative\"\\s*:\\s*([0-9.eE+-]+)\\s*}");
+
+    public void testGenerateLargeCatalogue() throws Exception {
+        List<Unit> catalogue = randomCatalogue(1000, new Random(1));
+        GeneratePresetImpl generator = new GeneratePresetImpl();
+        check("generate.catalogue1000", () -> generator.generate(catalogue, 50_000));
+    }
+
+    public void testGenerateStandardCatalogue() throws Exception {
+        List<Unit> catalogue = standardTypes();
+        GeneratePresetImpl generator = new GeneratePresetImpl();
+        check("generate.standard", () -> generator.generate(catalogue, 1500));
+    }
+
+    public void testPathCrowdedBoard() throws Exception {
+        Random rnd = new Random(2);
+        List<Unit> units = new ArrayList<>();
+        Unit[][] queries = new Unit[64][];
+        for (int i = 0; i < 250; i++) {
+            units.add(unit("O" + i, "Swordsman", 3 + rnd.nextInt(21), rnd.nextInt(21)));
+        }
+        for (int q = 0; q < queries.length; q++) {
+            Unit a = unit("A" + q, "Knight", rnd.nextInt(3), rnd.nextInt(21));
+            Unit t = unit("T" + q, "Knight", 24 + rnd.nextInt(3), rnd.nextInt(21));
+            queries[q] = new Unit[]{a, t};
+        }
+        units.add(queries[0][0]);
+
+        UnitTargetPathFinderImpl finder = new UnitTargetPathFinderImpl();
+        int[] next = {0};
+        check("path.crowded", () -> {
+            Unit[] q = queries[next[0]++ & (queries.length - 1)];
+            List<Edge> path = finder.getTargetPath(q[0], q[1], units);
+            return path.size();
+        });
+    }
+
+    /**
+     * Сравнивает A* и двунаправленный A* на двух нагрузках: случайные доски разной плотности (все расстояния)
+     * и запросы, записанные в сидированных боях {@link HeadlessBattle} (юниты ходят между колоннами сторон,
+     * расстояния 22..26). Печатает таблицу по чебышёвскому расстоянию и проверяет, что на каждом из двух
+     * диапазонов, на которые делит {@link UnitTargetPathFinderImpl#DEFAULT_BIDIRECTIONAL_MIN_DISTANCE},
+     * выбранная стратегия суммарно не медленнее другой больше чем на порог.
+     */
+    public void testPathStrategiesByDistance() throws Exception {
+        List<PathQuery> queries = randomBoardQueries(new Random(5), 300);
+        queries.addAll(battleQueries(10));
+
+        UnitTargetPathFinderImpl astar = new UnitTargetPathFinderImpl(Integer.MAX_VALUE);
+        UnitTargetPathFinderImpl bidirectional = new UnitTargetPathFinderImpl(0);
+        int maxDistance = 26;
+        long[] astarNodes = new long[maxDistance + 1];
+        long[] bidiNodes = new long[maxDistance + 1];
+        long[] astarNanos = new long[maxDistance + 1];
+        long[] bidiNanos = new long[maxDistance + 1];
+        int[] samples = new int[maxDistance + 1];
+        int repeats = 20;
+
+        for (int pass = 0; pass < 2; pass++) { // первый проход — прогрев
+            for (PathQuery q : queries) {
+                BattleEvents.PathSearchEvent ea = null;
+                BattleEvents.PathSearchEvent eb = null;
+                long da = 0;
+                long db = 0;
+                // чередуем порядок, чтобы ни одна стратегия не получала прогретый кеш другой
+                for (int r = 0; r < repeats; r++) {
+                    for (int k = 0; k < 2; k++) {
+                        long start = System.nanoTime();
+                        if ((k == 0) == ((r & 1) == 0)) {
+                            ea = new BattleEvents.PathSearchEvent();
+                            astar.findPath(q.attacker, q.target, q.units, ea);
+                            da += System.nanoTime() - start;
+                        } else {
+                            eb = new BattleEvents.PathSearchEvent();
+                            bidirectional.findPath(q.attacker, q.target, q.units, eb);
+                            db += System.nanoTime() - start;
+                        }
+                    }
+                }
+                if (pass == 0) continue;
+
+                int d = q.distance();
+                astarNodes[d] += ea.nodesExpanded;
+                bidiNodes[d] += eb.nodesExpanded;
+                astarNanos[d] += da;
+                bidiNanos[d] += db;
+                samples[d]++;
+            }
+        }
+
+        int split = Math.min(UnitTargetPathFinderImpl.DEFAULT_BIDIRECTIONAL_MIN_DISTANCE, maxDistance + 1);
+        long[] astarByRange = new long[2];
+        long[] bidiByRange = new long[2];
+        for (int d = 1; d <= maxDistance; d++) {
+            if (samples[d] == 0) continue;
+            System.out.printf(Locale.ROOT, "[perf] path d=%-2d %5d queries  astar %6.1f nodes %6.2f us  bidirectional %6.1f nodes %6.2f us%n",
+                    d, samples[d], (double) astarNodes[d] / samples[d], astarNanos[d] / 1000.0 / repeats / samples[d],
+                    (double) bidiNodes[d] / samples[d], bidiNanos[d] / 1000.0 / repeats / samples[d]);
+            int range = d < split ? 0 : 1;
+            astarByRange[range] += astarNanos[d];
+            bidiByRange[range] += bidiNanos[d];
+        }
+
+        double threshold = Double.parseDouble(System.getProperty("perf.threshold", "0.25"));
+        // d < split -> A*, d >= split -> двунаправленный
+        long[] chosen = {astarByRange[0], bidiByRange[1]};
+        long[] other = {bidiByRange[0], astarByRange[1]};
+        String[] names = {"astar for d < " + split, "bidirectional for d >= " + split};
+        for (int range = 0; range < 2; range++) {
+            if (chosen[range] == 0) continue;
+            System.out.printf(Locale.ROOT, "[perf] path %-28s %.3f x the alternative%n",
+                    names[range], (double) chosen[range] / other[range]);
+            assertTrue(names[range] + " is slower than the alternative",
+                    chosen[range] <= other[range] * (1 + threshold));
+        }
+    }
+
+    public void testPathWeightedTerrain() throws Exception {
+        Random rnd = new Random(3);
+        int[][] costs = new int[27][21];
+        for (int x = 0; x < 27; x++) {
+            for (int y = 0; y < 21; y++) {
+                int r = rnd.nextInt(10);
+                costs[x][y] = r == 0 ? TerrainMap.IMPASSABLE : (r < 3 ? 5 : 1);
+            }
+        }
+        UnitTargetPathFinderImpl finder = new UnitTargetPathFinderImpl(new TerrainMap(costs, 4));
+        Unit a = unit("A", "Knight", 0, 10);
+        Unit t = unit("T", "Knight", 26, 10);
+        List<Unit> units = Arrays.asList(a, t);
+
+        check("path.weightedAlt", () -> finder.getTargetPath(a, t, units).size());
+    }
+
+    public void testFullArmyBattle() throws Exception {
+        HeadlessBattle battle = new HeadlessBattle();
+        // фиксированный seed: каждый прогон — один и тот же бой одинаковой длины
+        check("battle.full11", () -> battle.run(fullArmy(), fullArmy(), BATTLE_SEED).getAttacks());
+    }
+
+    public void testPredictorFullArmies() throws Exception {
+        BattleOutcomePredictor predictor = new BattleOutcomePredictor();
+        Army player = fullArmy();
+        Army computer = fullArmy();
+        check("predictor.full11", () -> predictor.predict(player, computer).getRounds());
+    }
+
+    // ---------- harness ----------
+
+    interface Op {
+        Object run() throws Exception;
+    }
+
+    private void check(String scenario, Op op) throws Exception {
+        Measurement m = measure(op);
+        System.out.printf(Locale.ROOT, "[perf] %-24s %12.1f ops/s %12.0f bytes/op %12.6f x calibration%n",
+                scenario, m.opsPerSecond, m.bytesPerOp, m.relative);
+
+        Path file = baselineFile();
+        Map<String, Measurement> baseline = readBaseline(file);
+
+        if (Boolean.getBoolean("perf.record")) {
+            baseline.put(scenario, m);
+            writeBaseline(file, baseline);
+            return;
+        }
+
+        Measurement base = baseline.get(scenario);
+        if (base == null) {
+            System.out.println("[perf] no baseline for " + scenario + ", record one with -Dperf.record=true");
+            return;
+        }
+
+        double threshold = Double.parseDouble(System.getProperty("perf.threshold", "0.25"));
+        assertTrue(String.format(Locale.ROOT, "%s throughput regressed: %.6f x calibration vs baseline %.6f (threshold %.0f%%)",
+                        scenario, m.relative, base.relative, threshold * 100),
+                m.relative >= base.relative * (1 - threshold));
+        // небольшой запас в байтах: у дешёвых операций аллокации близки к нулю
+        assertTrue(String.format(Locale.ROOT, "%s allocation regressed: %.0f bytes/op vs baseline %.0f (threshold %.0f%%)",
+                        scenario, m.bytesPerOp, base.bytesPerOp, threshold * 100),
+                m.bytesPerOp <= base.bytesPerOp * (1 + threshold) + 64);
+    }
+
+    // лучший из нескольких прогонов: шум планировщика и GC только замедляет, а не ускоряет;
+    // отношение к калибровке — медиана, потому что шум бьёт по обоим замерам прогона
+    private static Measurement measure(Op op) throws Exception {
+        Op calibration = PerformanceRegressionTest::calibrationOp;
+        Object sink = null;
+        long end = System.nanoTime() + WARMUP_NANOS;
+        while (System.nanoTime() < end) {
+            sink = op.run();
+            sink = calibration.run();
+        }
+
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+
+        double bestOps = 0;
+        double bestBytes = Double.MAX_VALUE;
+        double[] ratios = new double[TRIALS];
+        for (int trial = 0; trial < TRIALS; trial++) {
+            double calibrationOps = run(calibration, CALIBRATION_NANOS)[0];
+
+            long bytesBefore = threads.getThreadAllocatedBytes(threadId);
+            double[] r = run(op, TRIAL_NANOS);
+            long bytes = threads.getThreadAllocatedBytes(threadId) - bytesBefore;
+
+            bestOps = Math.max(bestOps, r[0]);
+            bestBytes = Math.min(bestBytes, bytes / r[1]);
+            ratios[trial] = r[0] / calibrationOps;
+        }
+        Arrays.sort(ratios);
+
+        assertNotNull(sink);
+        return new Measurement(bestOps, bestBytes, ratios[TRIALS / 2]);
+    }
+
+    // {оп/с, число операций}
+    private static double[] run(Op op, long nanos) throws Exception {
+        Object sink = null;
+        long ops = 0;
+        long start = System.nanoTime();
+        long end = start + nanos;
+        long now;
+        do {
+            sink = op.run();
+            ops++;
+        } while ((now = System.nanoTime()) < end);
+        assertNotNull(sink);
+        return new double[]{ops * 1e9 / (now - start), ops};
+    }
+
+    private static Object calibrationOp() {
+        int[] copy = CALIBRATION_DATA.clone();
+        Arrays.sort(copy);
+        return copy[copy.length / 2];
+    }
+
+    private static Path baselineFile() {
+        return Paths.get(System.getProperty("perf.baseline", "src/test/resources/perf-baseline.json"));
+    }
+
+    private static Map<String, Measurement> readBaseline(Path file) throws IOException {
+        Map<String, Measurement> result = new TreeMap<>();
+        if (!Files.exists(file)) return result;
+
+        Matcher m = ENTRY.matcher(new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+        while (m.find()) {
+            result.put(m.group(1), new Measurement(Double.parseDouble(m.group(2)), Double.parseDouble(m.group(3)),
+                    Double.parseDouble(m.group(4))));
+        }
+        return result;
+    }
+
+    private static void writeBaseline(Path file, Map<String, Measurement> baseline) throws IOException {
+        StringBuilder sb = new StringBuilder("{\n");
+        Iterator<Map.Entry<String, Measurement>> it = baseline.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, Measurement> e = it.next();
+            sb.append(String.format(Locale.ROOT, "  \"%s\": { \"opsPerSecond\": %.1f, \"bytesPerOp\": %.0f, \"relative\": %.6f }",
+                    e.getKey(), e.getValue().opsPerSecond, e.getValue().bytesPerOp, e.getValue().relative));
+            sb.append(it.hasNext() ? ",\n" : "\n");
+        }
+        sb.append("}\n");
+        if (file.getParent() != null) Files.createDirectories(file.getParent());
+        Files.write(file, sb.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static final class Measurement {
+        final double opsPerSecond;
+        final double bytesPerOp;
+        final double relative; // оп/с в долях калибровочной операции
+
+        Measurement(double opsPerSecond, double bytesPerOp, double relative) {
+            this.opsPerSecond = opsPerSecond;
+            this.bytesPerOp = bytesPerOp;
+            this.relative = relative;
+        }
+    }
+
+    // ---------- сценарии ----------
+
+    private static final class PathQuery {
+        final Unit attacker;
+        final Unit target;
+        final List<Unit> units;
+
+        PathQuery(Unit attacker, Unit target, List<Unit> units) {
+            this.attacker = attacker;
+            this.target = target;
+            this.units = units;
+        }
+
+        int distance() {
+            return Math.max(Math.abs(attacker.getxCoordinate() - target.getxCoordinate()),
+                    Math.abs(attacker.getyCoordinate() - target.getyCoordinate()));
+        }
+    }
+
+    // доски с препятствиями в средних колоннах, плотность от пустой до почти сплошной
+    private static List<PathQuery> randomBoardQueries(Random rnd, int boards) {
+        List<PathQuery> result = new ArrayList<>();
+        for (int board = 0; board < boards; board++) {
+            boolean[][] occupied = new boolean[27][21];
+            List<Unit> obstacles = new ArrayList<>();
+            int density = rnd.nextInt(260);
+            for (int i = 0; i < density; i++) {
+                int x = 3 + rnd.nextInt(21);
+                int y = rnd.nextInt(21);
+                if (occupied[x][y]) continue;
+                occupied[x][y] = true;
+                obstacles.add(unit("O" + i, "Swordsman", x, y));
+            }
+
+            for (int q = 0; q < 40; q++) {
+                int sx = rnd.nextInt(27), sy = rnd.nextInt(21);
+                int tx = rnd.nextInt(27), ty = rnd.nextInt(21);
+                if (occupied[sx][sy] || occupied[tx][ty] || (sx == tx && sy == ty)) continue;
+
+                Unit a = unit("A", "Knight", sx, sy);
+                Unit t = unit("T", "Knight", tx, ty);
+                List<Unit> units = new ArrayList<>(obstacles);
+                units.add(a);
+                units.add(t);
+                result.add(new PathQuery(a, t, units));
+            }
+        }
+        return result;
+    }
+
+    // запросы сидированных боёв полных армий; юниты копируются, потому что бой двигает и убивает оригиналы
+    private static List<PathQuery> battleQueries(int battles) throws InterruptedException {
+        List<PathQuery> result = new ArrayList<>();
+        UnitTargetPathFinderImpl recorded = new UnitTargetPathFinderImpl(Integer.MAX_VALUE);
+        HeadlessBattle battle = new HeadlessBattle(new SuitableForAttackUnitsFinderImpl(), (attacker, target, units) -> {
+            List<Unit> snapshot = new ArrayList<>(units.size());
+            Unit a = null;
+            Unit t = null;
+            for (Unit u : units) {
+                Unit copy = copyOf(u);
+                snapshot.add(copy);
+                if (u == attacker) a = copy;
+                if (u == target) t = copy;
+            }
+            result.add(new PathQuery(a != null ? a : copyOf(attacker), t != null ? t : copyOf(target), snapshot));
+            return recorded.getTargetPath(attacker, target, units);
+        });
+        for (long seed = 1; seed <= battles; seed++) {
+            battle.run(fullArmy(), fullArmy(), seed);
+        }
+        return result;
+    }
+
+    private static Unit copyOf(Unit u) {
+        Unit copy = new Unit(u.getName(), u.getUnitType(), u.getHealth(), u.getBaseAttack(), u.getCost(),
+                u.getAttackType(), null, null, u.getxCoordinate(), u.getyCoordinate());
+        copy.setAlive(u.isAlive());
+        return copy;
+    }
+
+    private static Unit unit(String name, String type, int x, int y) {
+        return new Unit(name, type, 100, 10, 10, "Melee", null, null, x, y);
+    }
+
+    private static List<Unit> standardTypes() {
+        return Arrays.asList(
+                new Unit("Archer", "Archer", 50, 30, 20, "Ranged", null, null, 0, 0),
+                new Unit("Knight", "Knight", 100, 40, 30, "Melee", null, null, 0, 0),
+                new Unit("Pikeman", "Pikeman", 80, 25, 20, "Melee", null, null, 0, 0),
+                new Unit("Swordsman", "Swordsman", 60, 20, 15, "Melee", null, null, 0, 0)
+        );
+    }
+
+    private static List<Unit> randomCatalogue(int size, Random rnd) {
+        List<Unit> catalogue = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            catalogue.add(new Unit("U" + i, "Type" + i, 10 + rnd.nextInt(200), 1 + rnd.nextInt(50),
+                    1 + rnd.nextInt(20), "Melee", null, null, 0, 0));
+        }
+        return catalogue;
+    }
+
+    // 11 юнитов каждого из четырёх стандартных типов
+    private static Army fullArmy() {
+        List<Unit> units = new ArrayList<>();
+        for (Unit base : standardTypes()) {
+            for (int i = 1; i <= 11; i++) {
+                units.add(new Unit(base.getUnitType() + "_" + i, base.getUnitType(), base.getHealth(),
+                        base.getBaseAttack(), base.getCost(), base.getAttackType(), null, null, 0, 0));
+            }
+        }
+        return new Army(units);
+    }
+}
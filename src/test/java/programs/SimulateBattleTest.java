@@ -6,6 +6,7 @@ import com.battle.heroes.army.programs.PrintBattleLog;
 import com.battle.heroes.army.programs.Program;
 import junit.framework.TestCase;
 
+import java.util.Arrays;
 import java.util.Collections;
 
 public class SimulateBattleTest extends TestCase {
@@ -38,6 +39,111 @@ public class SimulateBattleTest extends TestCase {
         assertTrue(log.called);
     }
 
+    public void testTranspositionTableShortCircuitsRepeatedBattle() throws InterruptedException {
+        BattleTranspositionTable table = new BattleTranspositionTable(16);
+
+        Unit[] first = duel();
+        new SimulateBattleImpl(new MockPrintBattleLog(), table).simulate(armyOf(first[0]), armyOf(first[1]));
+        assertEquals(0, table.getHits());
+        assertTrue(table.size() > 0);
+
+        Unit[] second = duel();
+        MockPrintBattleLog secondLog = new MockPrintBattleLog();
+        new SimulateBattleImpl(secondLog, table).simulate(armyOf(second[0]), armyOf(second[1]));
+
+        assertEquals(1, table.getHits());
+        assertFalse(secondLog.called);
+        for (int i = 0; i < 2; i++) {
+            assertEquals(first[i].isAlive(), second[i].isAlive());
+            assertEquals(first[i].getHealth(), second[i].getHealth());
+        }
+    }
+
+    public void testIdleLimitCountsDamageNotReturnedTargets() throws InterruptedException {
+        // программа всегда возвращает цель, но урона не наносит — раньше это считалось попаданием
+        Unit playerUnit = new Unit("Player", "T1", 25, 0, 5, "P", null, null, 0, 0);
+        Unit computerUnit = new Unit("Computer", "T1", 30, 0, 5, "P", null, null, 26, 0);
+        playerUnit.setProgram(new NoDamageProgram(computerUnit));
+        computerUnit.setProgram(new NoDamageProgram(playerUnit));
+
+        CountingPrintBattleLog counting = new CountingPrintBattleLog();
+        new SimulateBattleImpl(counting, null, 3).simulate(armyOf(playerUnit), armyOf(computerUnit));
+
+        assertEquals(6, counting.attacks); // 3 раунда по ходу на сторону
+        assertTrue(playerUnit.isAlive() && computerUnit.isAlive());
+    }
+
+    public void testRoundLimitStopsSlowBattle() throws InterruptedException {
+        Unit[] units = duel();
+        units[0].setHealth(1_000_000);
+        units[1].setHealth(1_000_000);
+
+        CountingPrintBattleLog counting = new CountingPrintBattleLog();
+        new SimulateBattleImpl(counting, null, 10, 5).simulate(armyOf(units[0]), armyOf(units[1]));
+
+        assertEquals(10, counting.attacks);
+        assertTrue(units[0].isAlive() && units[1].isAlive());
+    }
+
+    public void testRoundLimitedBattleIsNotCachedAsOutcome() throws InterruptedException {
+        BattleTranspositionTable table = new BattleTranspositionTable(64);
+
+        Unit[] first = slowDuel(100);
+        new SimulateBattleImpl(new CountingPrintBattleLog(), table, 0, 5)
+                .simulate(armyOf(first[0]), armyOf(first[1]));
+        assertEquals(95, first[0].getHealth());
+
+        // состояние 96/96 встречалось в первом бою на 5-м раунде, но тот бой оборван лимитом
+        Unit[] second = slowDuel(96);
+        CountingPrintBattleLog counting = new CountingPrintBattleLog();
+        new SimulateBattleImpl(counting, table, 0, 5)
+                .simulate(armyOf(second[0]), armyOf(second[1]));
+
+        assertEquals(0, table.getHits());
+        assertEquals(10, counting.attacks);
+        assertEquals(91, second[0].getHealth());
+        assertEquals(91, second[1].getHealth());
+    }
+
+    public void testHeadlessBattleWithZeroAttackTerminates() throws InterruptedException {
+        Army player = new Army(Arrays.asList(
+                new Unit("K1", "Knight", 100, 0, 10, "Melee", null, null, 0, 0),
+                new Unit("K2", "Knight", 100, 0, 10, "Melee", null, null, 0, 0)));
+        Army computer = new Army(Arrays.asList(
+                new Unit("K3", "Knight", 100, 0, 10, "Melee", null, null, 0, 0),
+                new Unit("K4", "Knight", 100, 0, 10, "Melee", null, null, 0, 0)));
+
+        long start = System.nanoTime();
+        HeadlessBattle.Result r = new HeadlessBattle().run(player, computer);
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        assertFalse(r.playerWon() || r.computerWon());
+        assertTrue("battle took " + elapsedMillis + " ms", elapsedMillis < 5_000);
+    }
+
+    private static Unit[] duel() {
+        Unit playerUnit = new Unit("Player", "T1", 25, 5, 5, "P", null, null, 0, 0);
+        Unit computerUnit = new Unit("Computer", "T1", 30, 5, 5, "P", null, null, 26, 0);
+        playerUnit.setProgram(new MockProgram(computerUnit));
+        computerUnit.setProgram(new MockProgram(playerUnit));
+        return new Unit[]{playerUnit, computerUnit};
+    }
+
+    // дуэль по 1 урона за ход
+    private static Unit[] slowDuel(int health) {
+        Unit playerUnit = new Unit("Player", "T1", health, 1, 5, "P", null, null, 0, 0);
+        Unit computerUnit = new Unit("Computer", "T1", health, 1, 5, "P", null, null, 26, 0);
+        playerUnit.setProgram(new MockProgram(computerUnit, 1));
+        computerUnit.setProgram(new MockProgram(playerUnit, 1));
+        return new Unit[]{playerUnit, computerUnit};
+    }
+
+    private static Army armyOf(Unit unit) {
+        Army army = new Army();
+        army.setUnits(Collections.singletonList(unit));
+        return army;
+    }
+
     private static class MockPrintBattleLog implements PrintBattleLog {
         boolean called = false;
         @Override
@@ -46,18 +152,46 @@ public class SimulateBattleTest extends TestCase {
         }
     }
 
+    private static class CountingPrintBattleLog implements PrintBattleLog {
+        int attacks;
+        @Override
+        public void printBattleLog(Unit attacker, Unit target) {
+            attacks++;
+        }
+    }
+
+    private static class NoDamageProgram extends Program {
+        private final Unit target;
+
+        NoDamageProgram(Unit target) {
+            super(null, null, null, null);
+            this.target = target;
+        }
+
+        @Override
+        public Unit attack() {
+            return target;
+        }
+    }
+
     private static class MockProgram extends Program {
         private final Unit target;
+        private final int damage;
 
         MockProgram(Unit target) {
+            this(target, 10);
+        }
+
+        MockProgram(Unit target, int damage) {
             super(null, null, null, null);
             this.target = target;
+            this.damage = damage;
         }
 
         @Override
         public Unit attack() {
             if (target != null && target.isAlive()) {
-                target.setHealth(target.getHealth() - 10);
+                target.setHealth(target.getHealth() - damage);
                 if (target.getHealth() <= 0) {
                     target.setAlive(false);
                 }
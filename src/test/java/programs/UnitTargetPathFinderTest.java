@@ -6,6 +6,7 @@ import junit.framework.TestCase;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Random;
 
 public class UnitTargetPathFinderTest extends TestCase {
 
@@ -55,4 +56,211 @@ public class UnitTargetPathFinderTest extends TestCase {
         List<Edge> path = pathFinder.getTargetPath(null, null, new ArrayList<>());
         assertTrue(path.isEmpty());
     }
+
+    public void testCrowdedPathsMatchUniformTerrainLengths() {
+        // взвешенный поиск по рельефу из единиц — независимая проверка длины кратчайшего пути
+        UnitTargetPathFinderImpl uniform = new UnitTargetPathFinderImpl(new TerrainMap(uniformCosts(1)));
+        Random rnd = new Random(42);
+
+        for (int round = 0; round < 200; round++) {
+            Unit attacker = new Unit("A", "T1", 100, 10, 10, "P", null, null, rnd.nextInt(3), rnd.nextInt(21));
+            Unit target = new Unit("B", "T1", 100, 10, 10, "P", null, null, 24 + rnd.nextInt(3), rnd.nextInt(21));
+
+            List<Unit> units = new ArrayList<>();
+            units.add(attacker);
+            units.add(target);
+            int obstacles = rnd.nextInt(250);
+            for (int i = 0; i < obstacles; i++) {
+                units.add(new Unit("O", "T1", 100, 10, 10, "P", null, null, rnd.nextInt(27), rnd.nextInt(21)));
+            }
+
+            List<Edge> expected = uniform.getTargetPath(attacker, target, units);
+            List<Edge> actual = pathFinder.getTargetPath(attacker, target, units);
+
+            assertEquals(expected.size(), actual.size());
+            assertValidPath(actual, attacker, target, units);
+        }
+    }
+
+    public void testBidirectionalMatchesAStarLengths() {
+        UnitTargetPathFinderImpl aStar = new UnitTargetPathFinderImpl(Integer.MAX_VALUE);
+        UnitTargetPathFinderImpl bidirectional = new UnitTargetPathFinderImpl(0);
+        Random rnd = new Random(42);
+
+        for (int round = 0; round < 500; round++) {
+            Unit attacker = new Unit("A", "T1", 100, 10, 10, "P", null, null, rnd.nextInt(27), rnd.nextInt(21));
+            Unit target = new Unit("B", "T1", 100, 10, 10, "P", null, null, rnd.nextInt(27), rnd.nextInt(21));
+
+            List<Unit> units = new ArrayList<>();
+            units.add(attacker);
+            units.add(target);
+            int obstacles = rnd.nextInt(300);
+            for (int i = 0; i < obstacles; i++) {
+                units.add(new Unit("O", "T1", 100, 10, 10, "P", null, null, rnd.nextInt(27), rnd.nextInt(21)));
+            }
+
+            List<Edge> expected = aStar.getTargetPath(attacker, target, units);
+            List<Edge> actual = bidirectional.getTargetPath(attacker, target, units);
+
+            assertEquals(expected.size(), actual.size());
+            assertValidPath(actual, attacker, target, units);
+        }
+    }
+
+    public void testWalledInTargetIsRejected() {
+        Unit attacker = new Unit("A", "T1", 100, 10, 10, "P", null, null, 0, 0);
+        Unit target = new Unit("B", "T1", 100, 10, 10, "P", null, null, 20, 10);
+        List<Unit> units = walledIn(attacker, target);
+
+        assertTrue(pathFinder.getTargetPath(attacker, target, units).isEmpty());
+        assertTrue(new UnitTargetPathFinderImpl(Integer.MAX_VALUE).getTargetPath(attacker, target, units).isEmpty());
+    }
+
+    public void testFilterReachable() {
+        Unit attacker = new Unit("A", "T1", 100, 10, 10, "P", null, null, 0, 0);
+        Unit walled = new Unit("B", "T1", 100, 10, 10, "P", null, null, 20, 10);
+        Unit open = new Unit("C", "T1", 100, 10, 10, "P", null, null, 26, 0);
+        List<Unit> units = walledIn(attacker, walled);
+        units.add(open);
+
+        List<Unit> candidates = new ArrayList<>();
+        candidates.add(walled);
+        candidates.add(open);
+
+        List<Unit> reachable = pathFinder.filterReachable(attacker, candidates, units);
+        assertEquals(1, reachable.size());
+        assertSame(open, reachable.get(0));
+        assertFalse(pathFinder.getTargetPath(attacker, open, units).isEmpty());
+    }
+
+    public void testWeightedPathAvoidsSwampAndRocks() {
+        int[][] costs = uniformCosts(1);
+        for (int y = 0; y < 21; y++) {
+            costs[3][y] = 30; // болото поперёк поля
+        }
+        costs[3][20] = 1;     // брод у края
+        costs[2][10] = TerrainMap.IMPASSABLE;
+
+        Unit attacker = new Unit("A", "T1", 100, 10, 10, "P", null, null, 0, 10);
+        Unit target = new Unit("B", "T1", 100, 10, 10, "P", null, null, 6, 10);
+        List<Unit> units = new ArrayList<>();
+        units.add(attacker);
+        units.add(target);
+
+        List<Edge> path = new UnitTargetPathFinderImpl(new TerrainMap(costs)).getTargetPath(attacker, target, units);
+
+        assertFalse(path.isEmpty());
+        assertValidPath(path, attacker, target, units);
+        for (Edge e : path) {
+            assertFalse(e.getX() == 2 && e.getY() == 10);
+            assertFalse(e.getX() == 3 && e.getY() != 20);
+        }
+        // через брод: 10 шагов до (3, 20) и 10 обратно — дешевле, чем 5 + 30 напрямую через болото
+        assertEquals(20, pathCost(path, costs));
+    }
+
+    public void testLandmarkHeuristicKeepsOptimalCost() {
+        Random rnd = new Random(11);
+        for (int map = 0; map < 20; map++) {
+            int[][] costs = uniformCosts(1);
+            for (int x = 0; x < 27; x++) {
+                for (int y = 0; y < 21; y++) {
+                    int r = rnd.nextInt(10);
+                    costs[x][y] = r == 0 ? TerrainMap.IMPASSABLE : (r < 3 ? 5 : 1 + rnd.nextInt(3));
+                }
+            }
+            UnitTargetPathFinderImpl plain = new UnitTargetPathFinderImpl(new TerrainMap(costs));
+            UnitTargetPathFinderImpl alt = new UnitTargetPathFinderImpl(new TerrainMap(costs, 4));
+
+            for (int q = 0; q < 20; q++) {
+                Unit attacker = new Unit("A", "T1", 100, 10, 10, "P", null, null, rnd.nextInt(27), rnd.nextInt(21));
+                Unit target = new Unit("B", "T1", 100, 10, 10, "P", null, null, rnd.nextInt(27), rnd.nextInt(21));
+                List<Unit> units = new ArrayList<>();
+                units.add(attacker);
+                units.add(target);
+
+                List<Edge> expected = plain.getTargetPath(attacker, target, units);
+                List<Edge> actual = alt.getTargetPath(attacker, target, units);
+
+                assertEquals(expected.isEmpty(), actual.isEmpty());
+                assertEquals(pathCost(expected, costs), pathCost(actual, costs));
+                for (Edge e : actual) {
+                    assertTrue(costs[e.getX()][e.getY()] != TerrainMap.IMPASSABLE
+                            || (e.getX() == attacker.getxCoordinate() && e.getY() == attacker.getyCoordinate()));
+                }
+            }
+        }
+    }
+
+    public void testMaxTerrainCostDoesNotOverflow() {
+        int[][] costs = uniformCosts(TerrainMap.MAX_COST);
+        costs[13][0] = 1; // единственная дешёвая клетка не на кратчайшем пути
+
+        Unit attacker = new Unit("A", "T1", 100, 10, 10, "P", null, null, 0, 10);
+        Unit target = new Unit("B", "T1", 100, 10, 10, "P", null, null, 26, 10);
+        List<Unit> units = new ArrayList<>();
+        units.add(attacker);
+        units.add(target);
+
+        List<Edge> path = new UnitTargetPathFinderImpl(new TerrainMap(costs, 4)).getTargetPath(attacker, target, units);
+        assertEquals(27, path.size());
+        assertValidPath(path, attacker, target, units);
+
+        costs[5][5] = TerrainMap.MAX_COST + 1;
+        try {
+            new TerrainMap(costs);
+            fail("cost above MAX_COST must be rejected");
+        } catch (IllegalArgumentException expected) {
+            // ok
+        }
+    }
+
+    private static int[][] uniformCosts(int cost) {
+        int[][] costs = new int[27][21];
+        for (int[] column : costs) {
+            java.util.Arrays.fill(column, cost);
+        }
+        return costs;
+    }
+
+    // стоимость входа во все клетки пути, кроме стартовой
+    private static int pathCost(List<Edge> path, int[][] costs) {
+        int sum = 0;
+        for (int i = 1; i < path.size(); i++) {
+            sum += costs[path.get(i).getX()][path.get(i).getY()];
+        }
+        return sum;
+    }
+
+    // цель в кольце из 8 юнитов
+    private static List<Unit> walledIn(Unit attacker, Unit target) {
+        List<Unit> units = new ArrayList<>();
+        units.add(attacker);
+        units.add(target);
+        for (int dx = -1; dx <= 1; dx++) {
+            for (int dy = -1; dy <= 1; dy++) {
+                if (dx == 0 && dy == 0) continue;
+                units.add(new Unit("W", "T1", 100, 10, 10, "P", null, null,
+                        target.getxCoordinate() + dx, target.getyCoordinate() + dy));
+            }
+        }
+        return units;
+    }
+
+    private static void assertValidPath(List<Edge> path, Unit attacker, Unit target, List<Unit> units) {
+        if (path.isEmpty()) return;
+        assertEquals(attacker.getxCoordinate(), path.get(0).getX());
+        assertEquals(attacker.getyCoordinate(), path.get(0).getY());
+        assertEquals(target.getxCoordinate(), path.get(path.size() - 1).getX());
+        assertEquals(target.getyCoordinate(), path.get(path.size() - 1).getY());
+        for (int i = 1; i < path.size(); i++) {
+            Edge a = path.get(i - 1);
+            Edge b = path.get(i);
+            assertTrue(Math.max(Math.abs(a.getX() - b.getX()), Math.abs(a.getY() - b.getY())) == 1);
+            for (Unit u : units) {
+                if (u == attacker || u == target) continue;
+                assertFalse(u.getxCoordinate() == b.getX() && u.getyCoordinate() == b.getY());
+            }
+        }
+    }
 }